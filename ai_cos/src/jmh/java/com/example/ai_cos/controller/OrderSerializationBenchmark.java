@@ -0,0 +1,109 @@
+package com.example.ai_cos.controller;
+
+import com.example.ai_cos.dto.OrderRow;
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.model.OrderStatus;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response building for {@code GET /api/orders} without the database: the original per-order
+ * {@code HashMap} built from entities, the {@link OrderRow} projection now returned, and the
+ * NDJSON encoding used by {@code /api/orders/stream}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderSerializationBenchmark {
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private List<Order> orders;
+    private List<OrderRow> orderRows;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        OrderStatus[] statuses = OrderStatus.values();
+        List<Client> clients = new ArrayList<>();
+        for (long id = 1; id <= Math.max(1, rows / 10); id++) {
+            Client client = new Client("Jan", "Kowalski", "jan.kowalski" + id + "@email.pl", "+48123456789");
+            client.setId(id);
+            clients.add(client);
+        }
+        orders = new ArrayList<>(rows);
+        orderRows = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            Client client = clients.get(random.nextInt(clients.size()));
+            Order order = new Order("Laptop", 1 + random.nextInt(5), BigDecimal.valueOf(50 + random.nextInt(2000)), client);
+            order.setId(id);
+            order.setStatus(statuses[random.nextInt(statuses.length)]);
+            orders.add(order);
+            orderRows.add(new OrderRow(order.getId(), order.getProductName(), order.getQuantity(), order.getPrice(),
+                    order.getStatus(), order.getOrderDate(), client.getId(),
+                    client.getFirstName() + " " + client.getLastName()));
+        }
+    }
+
+    @Benchmark
+    public byte[] legacyMapPerOrder() throws IOException {
+        List<Map<String, Object>> result = orders.stream().map(order -> {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", order.getId());
+            map.put("productName", order.getProductName());
+            map.put("quantity", order.getQuantity());
+            map.put("price", order.getPrice());
+            map.put("status", order.getStatus());
+            map.put("orderDate", order.getOrderDate().toString());
+            map.put("clientId", order.getClient().getId());
+            map.put("clientName", order.getClient().getFirstName() + " " + order.getClient().getLastName());
+            return map;
+        }).toList();
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] orderRowProjection() throws IOException {
+        return objectMapper.writeValueAsBytes(orderRows);
+    }
+
+    @Benchmark
+    public byte[] ndjsonStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 160);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            for (OrderRow row : orderRows) {
+                generator.writeObject(row);
+                generator.writeRaw('\n');
+            }
+        }
+        return out.toByteArray();
+    }
+}
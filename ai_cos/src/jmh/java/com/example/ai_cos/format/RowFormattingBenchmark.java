@@ -0,0 +1,67 @@
+package com.example.ai_cos.format;
+
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code listAllOrders} text built the previous way ({@code String.format} per row joined
+ * with a collector) versus a {@link RowTemplate} rendered through {@link RowFormatter}. Run with
+ * the {@code gc} profiler configured in the build and compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RowFormattingBenchmark {
+
+    private static final RowTemplate<Order> ORDER = RowTemplate.compile(
+            "ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s, Klient ID: %d",
+            Order::getId, Order::getProductName, Order::getQuantity, Order::getPrice, Order::getStatus,
+            o -> o.getClient().getId());
+
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        orders = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            Client client = new Client("Jan", "Kowalski", "jan" + i + "@email.pl", null);
+            client.setId((long) random.nextInt(10_000));
+            Order order = new Order("Słuchawki", 1 + random.nextInt(5), BigDecimal.valueOf(50 + random.nextInt(2000)), client);
+            order.setId((long) i);
+            orders.add(order);
+        }
+    }
+
+    @Benchmark
+    public String stringFormatJoining() {
+        return orders.stream()
+                .map(o -> String.format("ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s, Klient ID: %d",
+                        o.getId(), o.getProductName(), o.getQuantity(), o.getPrice(), o.getStatus(),
+                        o.getClient().getId()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Benchmark
+    public String rowTemplate() {
+        return RowFormatter.lines("", orders, ORDER);
+    }
+}
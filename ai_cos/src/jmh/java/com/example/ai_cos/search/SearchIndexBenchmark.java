@@ -0,0 +1,138 @@
+package com.example.ai_cos.search;
+
+import com.example.ai_cos.model.TextNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client name search at increasing table sizes: the original {@code LOWER(..) LIKE '%x%'} scan,
+ * the indexed prefix range on the normalized columns, and the in-memory trigram index. The data
+ * uses the same name vocabulary as the generator, so common surnames match many rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {
+            "Jan", "Anna", "Piotr", "Maria", "Krzysztof", "Katarzyna", "Andrzej", "Małgorzata",
+            "Tomasz", "Agnieszka", "Marcin", "Barbara", "Paweł", "Ewa", "Michał", "Joanna"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Nowak", "Kowalski", "Wiśniewski", "Wójcik", "Kowalczyk", "Kamiński", "Lewandowski",
+            "Zieliński", "Szymański", "Woźniak", "Dąbrowski", "Kozłowski", "Jankowski", "Mazur"
+    };
+
+    @Param({"10000", "1000000"})
+    public int clients;
+
+    @Param({"Wisniewski", "kowalsky", "mazur417"})
+    public String query;
+
+    private Connection connection;
+    private PreparedStatement containsScan;
+    private PreparedStatement prefixRange;
+    private TrigramIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS clients");
+            ddl.execute("CREATE TABLE clients (id BIGINT PRIMARY KEY, first_name VARCHAR(255), last_name VARCHAR(255), " +
+                        "first_name_norm VARCHAR(255), last_name_norm VARCHAR(255), email VARCHAR(255))");
+            ddl.execute("CREATE INDEX idx_clients_first_name_norm ON clients (first_name_norm)");
+            ddl.execute("CREATE INDEX idx_clients_last_name_norm ON clients (last_name_norm)");
+        }
+
+        index = new TrigramIndex();
+        Random random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO clients VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= clients; id++) {
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                String localPart = TextNormalizer.normalize(firstName + "." + lastName) + random.nextInt(1000);
+                insert.setLong(1, id);
+                insert.setString(2, firstName);
+                insert.setString(3, lastName);
+                insert.setString(4, TextNormalizer.normalize(firstName));
+                insert.setString(5, TextNormalizer.normalize(lastName));
+                insert.setString(6, localPart + "@email.pl");
+                insert.addBatch();
+                index.put(id, firstName + " " + lastName + " " + localPart);
+                if (id % 5000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+
+        containsScan = connection.prepareStatement(
+                "SELECT id FROM clients WHERE LOWER(first_name) LIKE LOWER('%' || ? || '%') OR LOWER(last_name) LIKE LOWER('%' || ? || '%')");
+        prefixRange = connection.prepareStatement(
+                "SELECT id FROM clients WHERE last_name_norm >= ? AND last_name_norm < ? " +
+                "UNION SELECT id FROM clients WHERE first_name_norm >= ? AND first_name_norm < ?");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE clients");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public int repositoryContainsScan() throws SQLException {
+        containsScan.setString(1, query);
+        containsScan.setString(2, query);
+        return count(containsScan);
+    }
+
+    @Benchmark
+    public int normalizedPrefixRange() throws SQLException {
+        String prefix = TextNormalizer.normalize(query);
+        String upperBound = TextNormalizer.prefixUpperBound(prefix);
+        prefixRange.setString(1, prefix);
+        prefixRange.setString(2, upperBound);
+        prefixRange.setString(3, prefix);
+        prefixRange.setString(4, upperBound);
+        return count(prefixRange);
+    }
+
+    @Benchmark
+    public List<TrigramIndex.Match> trigramIndex() {
+        return index.search(query, 50, 0.5);
+    }
+
+    private static int count(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.config.ExecutorFactory;
+import com.example.ai_cos.metrics.ChatMetrics;
+import com.example.ai_cos.resilience.AdaptiveLimiter;
+import com.example.ai_cos.resilience.CircuitBreaker;
+import com.example.ai_cos.resilience.RetryPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building and serializing one Gemini request: rebuilding the tool declarations per
+ * request (the previous behaviour) versus splicing the fragments cached at startup. The
+ * declarations alone cover the schema cleanup done for every tool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChatRequestBuildingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GeminiClient geminiClient;
+    private ChatService chatService;
+    private ArrayNode contents;
+
+    @Setup
+    public void setUp() throws Exception {
+        ExecutorFactory executorFactory = new ExecutorFactory(true, 1);
+        geminiClient = new GeminiClient(executorFactory, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        DataVersion dataVersion = new DataVersion();
+        chatService = new ChatService(
+                MethodToolCallbackProvider.builder().toolObjects(new DatabaseTools(null, null, null, null)).build(),
+                new GeminiGuard(geminiClient, new AdaptiveLimiter(1, 1, 1, 0, 0.9, 2.0),
+                        new CircuitBreaker(1, 1, 1.0, Duration.ofSeconds(1)),
+                        new RetryPolicy(1, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+                new ChatResponseCache(dataVersion, false, 0, Duration.ofMinutes(1)),
+                new ChatSessionStore(false, 0, Duration.ofMinutes(1), 0, 0, 0, 0), dataVersion,
+                executorFactory, new ChatMetrics(new SimpleMeterRegistry()));
+        chatService.refreshToolDeclarations();
+
+        contents = objectMapper.createArrayNode();
+        ObjectNode userContent = contents.addObject();
+        userContent.put("role", "user");
+        userContent.putArray("parts").addObject().put("text", "Kto jest naszym głównym klientem?");
+    }
+
+    @TearDown
+    public void tearDown() {
+        chatService.shutdown();
+        geminiClient.shutdown();
+    }
+
+    @Benchmark
+    public Object toolDeclarations() {
+        return chatService.buildToolDeclarations();
+    }
+
+    @Benchmark
+    public byte[] rebuildPerRequest() throws Exception {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.set("contents", contents);
+        request.putObject("system_instruction").putArray("parts").addObject().put("text", "instrukcje");
+        request.putArray("tools").addObject().set("function_declarations", chatService.buildToolDeclarations());
+        request.putObject("tool_config").putObject("function_calling_config").put("mode", "AUTO");
+        request.putObject("generationConfig").put("temperature", 0.3);
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public byte[] cachedFragments() throws Exception {
+        return objectMapper.writeValueAsBytes(chatService.buildRequestWithTools(contents, "AUTO"));
+    }
+}
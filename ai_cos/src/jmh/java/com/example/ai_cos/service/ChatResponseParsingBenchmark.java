@@ -0,0 +1,95 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.config.ExecutorFactory;
+import com.example.ai_cos.metrics.ChatMetrics;
+import com.example.ai_cos.resilience.AdaptiveLimiter;
+import com.example.ai_cos.resilience.CircuitBreaker;
+import com.example.ai_cos.resilience.RetryPolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a Gemini response body and pulling out the function calls or the answer text, as done
+ * once per model round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChatResponseParsingBenchmark {
+
+    private static final String FUNCTION_CALL_RESPONSE = """
+            {"candidates":[{"content":{"role":"model","parts":[
+              {"functionCall":{"name":"getTopClientByOrderCount","args":{}}},
+              {"functionCall":{"name":"getTopClientBySpending","args":{}}},
+              {"functionCall":{"name":"searchClientByName","args":{"name":"Wiśniewski"}}}]},
+              "finishReason":"STOP","index":0}],
+             "usageMetadata":{"promptTokenCount":1450,"candidatesTokenCount":42,"totalTokenCount":1492},
+             "modelVersion":"gemini-2.0-flash"}
+            """;
+
+    private static final String TEXT_RESPONSE = """
+            {"candidates":[{"content":{"role":"model","parts":[
+              {"text":"Witaj Użytkowniku! Klient z największą liczbą zamówień to Jan Kowalski (12 zamówień, 8 431,00 PLN). "},
+              {"text":"Najwięcej wydała Anna Wiśniewska: 9 872,00 PLN w 9 zamówieniach. "},
+              {"text":"Obaj klienci zamawiają głównie laptopy i monitory."}]},
+              "finishReason":"STOP","index":0}],
+             "usageMetadata":{"promptTokenCount":1620,"candidatesTokenCount":88,"totalTokenCount":1708},
+             "modelVersion":"gemini-2.0-flash"}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GeminiClient geminiClient;
+    private ChatService chatService;
+    private byte[] functionCallBody;
+    private byte[] textBody;
+
+    @Setup
+    public void setUp() {
+        ExecutorFactory executorFactory = new ExecutorFactory(true, 1);
+        geminiClient = new GeminiClient(executorFactory, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        DataVersion dataVersion = new DataVersion();
+        chatService = new ChatService(
+                MethodToolCallbackProvider.builder().toolObjects(new DatabaseTools(null, null, null, null)).build(),
+                new GeminiGuard(geminiClient, new AdaptiveLimiter(1, 1, 1, 0, 0.9, 2.0),
+                        new CircuitBreaker(1, 1, 1.0, Duration.ofSeconds(1)),
+                        new RetryPolicy(1, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+                new ChatResponseCache(dataVersion, false, 0, Duration.ofMinutes(1)),
+                new ChatSessionStore(false, 0, Duration.ofMinutes(1), 0, 0, 0, 0), dataVersion,
+                executorFactory, new ChatMetrics(new SimpleMeterRegistry()));
+        functionCallBody = FUNCTION_CALL_RESPONSE.getBytes(StandardCharsets.UTF_8);
+        textBody = TEXT_RESPONSE.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        chatService.shutdown();
+        geminiClient.shutdown();
+    }
+
+    @Benchmark
+    public List<JsonNode> parseFunctionCalls() throws Exception {
+        return chatService.extractFunctionCalls(objectMapper.readTree(functionCallBody));
+    }
+
+    @Benchmark
+    public String parseTextResponse() throws Exception {
+        JsonNode response = objectMapper.readTree(textBody);
+        List<JsonNode> functionCalls = chatService.extractFunctionCalls(response);
+        return functionCalls.isEmpty() ? chatService.extractTextResponse(response) : null;
+    }
+}
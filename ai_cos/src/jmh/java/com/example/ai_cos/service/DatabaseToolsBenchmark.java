@@ -0,0 +1,160 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.AiCosApplication;
+import com.example.ai_cos.dto.GenerationStatus;
+import com.example.ai_cos.search.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every {@link DatabaseTools} tool against a seeded dataset, called directly on the bean so the
+ * tool result cache is not involved. Clients are seeded at one per ten orders through
+ * {@link BulkDataGenerator}; the analytics view and search index are warmed before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DatabaseToolsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private DatabaseTools tools;
+    private long clientId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = new SpringApplicationBuilder(AiCosApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:tools-benchmark-" + orders,
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "app.warmup.enabled=false")
+                .run();
+        BulkDataGenerator generator = context.getBean(BulkDataGenerator.class);
+        String jobId = generator.start(Math.max(1, orders / 10), orders).id();
+        GenerationStatus status = generator.status(jobId).orElseThrow();
+        while (status.state() == GenerationStatus.State.RUNNING) {
+            Thread.sleep(50);
+            status = generator.status(jobId).orElseThrow();
+        }
+        if (status.state() != GenerationStatus.State.COMPLETED) {
+            throw new IllegalStateException("Seeding failed: " + status.error());
+        }
+
+        context.getBean(AnalyticsView.class).bootstrap();
+        context.getBean(SearchIndex.class).bootstrap();
+        tools = context.getBean(DatabaseTools.class);
+        clientId = Math.max(1, orders / 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String listAllClients() {
+        return tools.listAllClients(null, null, null);
+    }
+
+    @Benchmark
+    public String getClientById() {
+        return tools.getClientById(clientId);
+    }
+
+    @Benchmark
+    public String getClientCount() {
+        return tools.getClientCount();
+    }
+
+    @Benchmark
+    public String searchClientByEmail() {
+        return tools.searchClientByEmail("brak@email.pl");
+    }
+
+    @Benchmark
+    public String searchClientByName() {
+        return tools.searchClientByName("Wisniewski");
+    }
+
+    @Benchmark
+    public String listAllOrders() {
+        return tools.listAllOrders(null, null, null);
+    }
+
+    @Benchmark
+    public String getOrderById() {
+        return tools.getOrderById(clientId);
+    }
+
+    @Benchmark
+    public String getOrdersForClient() {
+        return tools.getOrdersForClient(clientId);
+    }
+
+    @Benchmark
+    public String getOrderCount() {
+        return tools.getOrderCount();
+    }
+
+    @Benchmark
+    public String getOrdersByStatus() {
+        return tools.getOrdersByStatus("SHIPPED", null, null, null);
+    }
+
+    @Benchmark
+    public String getTotalSpentByClient() {
+        return tools.getTotalSpentByClient(clientId);
+    }
+
+    @Benchmark
+    public String getDatabaseSummary() {
+        return tools.getDatabaseSummary();
+    }
+
+    @Benchmark
+    public String searchOrdersByProduct() {
+        return tools.searchOrdersByProduct("sluchawki", null, null);
+    }
+
+    @Benchmark
+    public String getClientsRankedByOrderCount() {
+        return tools.getClientsRankedByOrderCount(null, null);
+    }
+
+    @Benchmark
+    public String getClientsRankedBySpending() {
+        return tools.getClientsRankedBySpending(null, null);
+    }
+
+    @Benchmark
+    public String getMostPopularProducts() {
+        return tools.getMostPopularProducts();
+    }
+
+    @Benchmark
+    public String getTopClientByOrderCount() {
+        return tools.getTopClientByOrderCount();
+    }
+
+    @Benchmark
+    public String getTopClientBySpending() {
+        return tools.getTopClientBySpending();
+    }
+}
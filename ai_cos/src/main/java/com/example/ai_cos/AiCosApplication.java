@@ -2,8 +2,10 @@ package com.example.ai_cos;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
 
 @SpringBootApplication
+@EnableAsync
 public class AiCosApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,43 @@
+package com.example.ai_cos.config;
+
+import com.example.ai_cos.event.DataDomain;
+import com.example.ai_cos.service.ToolResultCache;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.util.Set;
+
+public class CachingToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final Set<DataDomain> domains;
+    private final ToolResultCache cache;
+
+    public CachingToolCallback(ToolCallback delegate, Set<DataDomain> domains, ToolResultCache cache) {
+        this.delegate = delegate;
+        this.domains = domains;
+        this.cache = cache;
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return cache.get(cache.key(getToolDefinition().name(), toolInput, domains), () -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return cache.get(cache.key(getToolDefinition().name(), toolInput, domains), () -> delegate.call(toolInput, toolContext));
+    }
+}
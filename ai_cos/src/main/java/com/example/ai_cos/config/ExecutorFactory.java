@@ -0,0 +1,41 @@
+package com.example.ai_cos.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors used for LLM calls, tool execution and streaming responses.
+ * Follows {@code spring.threads.virtual.enabled}, the same switch that moves Tomcat and
+ * {@code @Async} work onto virtual threads, so the whole request path runs in one mode.
+ * <p>
+ * Pinning audit: code on these paths uses {@code java.util.concurrent} locks rather than
+ * {@code synchronized}. The embedded H2 driver still synchronizes internally, but inside the
+ * same JVM it only holds the carrier while the statement executes, never across network I/O.
+ * Run with {@code -Djdk.tracePinnedThreads=short} to report any pinning that remains.
+ */
+@Component
+public class ExecutorFactory {
+
+    private final boolean virtualThreads;
+    private final int platformPoolSize;
+
+    public ExecutorFactory(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${app.threads.platform-pool-size:64}") int platformPoolSize) {
+        this.virtualThreads = virtualThreads;
+        this.platformPoolSize = platformPoolSize;
+    }
+
+    public ExecutorService create(String name) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(platformPoolSize, Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.ai_cos.config;
+
+import com.example.ai_cos.resilience.AdaptiveLimiter;
+import com.example.ai_cos.resilience.CircuitBreaker;
+import com.example.ai_cos.resilience.RetryPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/** Limiter, circuit breaker and retry policy used by {@link com.example.ai_cos.service.GeminiGuard}. */
+@Configuration
+public class GeminiResilienceConfig {
+
+    @Bean
+    public AdaptiveLimiter geminiLimiter(@Value("${gemini.limiter.initial-limit:8}") int initialLimit,
+                                         @Value("${gemini.limiter.min-limit:1}") int minLimit,
+                                         @Value("${gemini.limiter.max-limit:64}") int maxLimit,
+                                         @Value("${gemini.limiter.max-queue:100}") int maxQueue,
+                                         @Value("${gemini.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                         @Value("${gemini.limiter.latency-tolerance:2.0}") double latencyTolerance) {
+        return new AdaptiveLimiter(initialLimit, minLimit, maxLimit, maxQueue, backoffRatio, latencyTolerance);
+    }
+
+    @Bean
+    public CircuitBreaker geminiCircuitBreaker(@Value("${gemini.circuit.window:20}") int window,
+                                               @Value("${gemini.circuit.minimum-calls:10}") int minimumCalls,
+                                               @Value("${gemini.circuit.failure-rate:0.5}") double failureRate,
+                                               @Value("${gemini.circuit.open-duration:30s}") Duration openDuration) {
+        return new CircuitBreaker(window, minimumCalls, failureRate, openDuration);
+    }
+
+    @Bean
+    public RetryPolicy geminiRetryPolicy(@Value("${gemini.retry.max-attempts:3}") int maxAttempts,
+                                         @Value("${gemini.retry.base-delay:250ms}") Duration baseDelay,
+                                         @Value("${gemini.retry.max-delay:8s}") Duration maxDelay) {
+        return new RetryPolicy(maxAttempts, baseDelay, maxDelay);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ai_cos.config;
+
+import com.example.ai_cos.metrics.QueryTimingScope;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times every tool call, whether it comes from the chat loop or an MCP client, and records the
+ * result size and the database statements the call ran. Wraps {@link CachingToolCallback}, so
+ * cache hits show up as fast calls without statements. The first successful call is also
+ * reported to {@link StartupWarmup}.
+ */
+public class InstrumentedToolCallback implements ToolCallback {
+
+    private final ToolCallback delegate;
+    private final StartupWarmup startupWarmup;
+    private final Timer successTimer;
+    private final Timer errorTimer;
+    private final DistributionSummary resultSize;
+    private final Timer dbTime;
+    private final DistributionSummary dbStatements;
+
+    public InstrumentedToolCallback(ToolCallback delegate, MeterRegistry registry, StartupWarmup startupWarmup) {
+        this.delegate = delegate;
+        this.startupWarmup = startupWarmup;
+        String tool = delegate.getToolDefinition().name();
+        this.successTimer = Timer.builder("tools.calls").tag("tool", tool).tag("outcome", "success").register(registry);
+        this.errorTimer = Timer.builder("tools.calls").tag("tool", tool).tag("outcome", "error").register(registry);
+        this.resultSize = DistributionSummary.builder("tools.result.size").baseUnit("chars").tag("tool", tool).register(registry);
+        this.dbTime = Timer.builder("tools.db.time").tag("tool", tool).register(registry);
+        this.dbStatements = DistributionSummary.builder("tools.db.statements").tag("tool", tool).register(registry);
+    }
+
+    @Override
+    public ToolDefinition getToolDefinition() {
+        return delegate.getToolDefinition();
+    }
+
+    @Override
+    public ToolMetadata getToolMetadata() {
+        return delegate.getToolMetadata();
+    }
+
+    @Override
+    public String call(String toolInput) {
+        return instrument(() -> delegate.call(toolInput));
+    }
+
+    @Override
+    public String call(String toolInput, ToolContext toolContext) {
+        return instrument(() -> delegate.call(toolInput, toolContext));
+    }
+
+    private String instrument(Supplier<String> call) {
+        long start = System.nanoTime();
+        try (QueryTimingScope queries = QueryTimingScope.open("tool " + getToolDefinition().name())) {
+            String result = call.get();
+            long elapsed = System.nanoTime() - start;
+            successTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            startupWarmup.recordQuery(getToolDefinition().name(), elapsed);
+            resultSize.record(result == null ? 0 : result.length());
+            dbTime.record(queries.nanos(), TimeUnit.NANOSECONDS);
+            dbStatements.record(queries.statements());
+            return result;
+        } catch (RuntimeException e) {
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+}
@@ -1,18 +1,57 @@
 package com.example.ai_cos.config;
 
+import com.example.ai_cos.event.DataDomain;
 import com.example.ai_cos.service.DatabaseTools;
+import com.example.ai_cos.service.ReadsData;
+import com.example.ai_cos.service.ToolResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 @Configuration
 public class McpServerConfig {
 
     @Bean
-    public ToolCallbackProvider databaseToolCallbacks(DatabaseTools databaseTools) {
-        return MethodToolCallbackProvider.builder()
+    public ToolCallbackProvider databaseToolCallbacks(DatabaseTools databaseTools, ToolResultCache toolResultCache,
+                                                      MeterRegistry meterRegistry, StartupWarmup startupWarmup) {
+        ToolCallback[] toolCallbacks = MethodToolCallbackProvider.builder()
                 .toolObjects(databaseTools)
-                .build();
+                .build()
+                .getToolCallbacks();
+
+        Map<String, Set<DataDomain>> domainsByTool = readDomains(AopUtils.getTargetClass(databaseTools));
+        ToolCallback[] wrapped = Arrays.stream(toolCallbacks)
+                .map(callback -> new CachingToolCallback(callback,
+                        domainsByTool.getOrDefault(callback.getToolDefinition().name(), EnumSet.allOf(DataDomain.class)),
+                        toolResultCache))
+                .map(callback -> new InstrumentedToolCallback(callback, meterRegistry, startupWarmup))
+                .toArray(ToolCallback[]::new);
+        return ToolCallbackProvider.from(wrapped);
+    }
+
+    private static Map<String, Set<DataDomain>> readDomains(Class<?> toolClass) {
+        Map<String, Set<DataDomain>> domainsByTool = new HashMap<>();
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(toolClass)) {
+            Tool tool = method.getAnnotation(Tool.class);
+            ReadsData readsData = method.getAnnotation(ReadsData.class);
+            if (tool != null && readsData != null) {
+                String name = tool.name().isEmpty() ? method.getName() : tool.name();
+                domainsByTool.put(name, Set.copyOf(Arrays.asList(readsData.value())));
+            }
+        }
+        return domainsByTool;
     }
 }
@@ -0,0 +1,54 @@
+package com.example.ai_cos.config;
+
+import com.example.ai_cos.metrics.ProfilingDataSource;
+import com.example.ai_cos.metrics.QueryProfiler;
+import com.example.ai_cos.metrics.QueryTimingScope;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * Puts the {@link ProfilingDataSource} in front of the application data source and opens a
+ * {@link QueryTimingScope} per HTTP request, so N+1 repeats are counted per request.
+ * Always installed, because the scopes also feed the database time of tool calls and of the
+ * chat {@code Server-Timing} header; {@code app.query-profiler.enabled=false} only turns off
+ * the sampling and N+1 detection in {@link QueryProfiler}.
+ */
+@Configuration
+public class QueryProfilerConfig {
+
+    @Bean
+    static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<QueryProfiler> queryProfiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource(dataSource, queryProfiler);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    OncePerRequestFilter queryScopeFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                try (QueryTimingScope ignored = QueryTimingScope.open(request.getMethod() + " " + request.getRequestURI())) {
+                    chain.doFilter(request, response);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.ai_cos.config;
+
+import com.example.ai_cos.search.SearchIndex;
+import com.example.ai_cos.service.AnalyticsView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Preloads the in-memory analytics view and search index once the application is ready, so
+ * the first chat question does not pay for scanning the tables. Records how long startup and
+ * each warm-up step took; with {@code app.warmup.enabled=false} both are built on first use.
+ * The first tool call served afterwards is added to the report, so the cost of a cold or warm
+ * start is visible where users feel it.
+ */
+@Component
+public class StartupWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final AnalyticsView analyticsView;
+    private final SearchIndex searchIndex;
+    private final Environment environment;
+    private final boolean enabled;
+    private volatile Map<String, Object> report = Map.of();
+    private volatile long readyAt;
+    private final AtomicReference<Map<String, Object>> firstQuery = new AtomicReference<>();
+
+    public StartupWarmup(AnalyticsView analyticsView,
+                         SearchIndex searchIndex,
+                         Environment environment,
+                         @Value("${app.warmup.enabled:true}") boolean enabled) {
+        this.analyticsView = analyticsView;
+        this.searchIndex = searchIndex;
+        this.environment = environment;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        readyAt = System.nanoTime();
+        Map<String, Object> timings = new LinkedHashMap<>();
+        timings.put("profiles", Arrays.asList(environment.getActiveProfiles()));
+        timings.put("contextStartupMs", event.getTimeTaken() != null ? event.getTimeTaken().toMillis() : null);
+        timings.put("jvmToReadyMs", ManagementFactory.getRuntimeMXBean().getUptime());
+        timings.put("warmupEnabled", enabled);
+        if (enabled) {
+            long start = System.nanoTime();
+            timings.put("analyticsViewMs", timeMillis(analyticsView::bootstrap));
+            timings.put("searchIndexMs", timeMillis(searchIndex::bootstrap));
+            timings.put("warmupMs", (System.nanoTime() - start) / 1_000_000);
+            timings.put("orders", analyticsView.getSummary().orderCount());
+        }
+        report = Collections.unmodifiableMap(timings);
+        log.info("Startup timings: {}", report);
+    }
+
+    /**
+     * Records the latency of the first tool call; later calls are ignored.
+     */
+    public void recordQuery(String tool, long nanos) {
+        if (firstQuery.get() != null) {
+            return;
+        }
+        Map<String, Object> query = new LinkedHashMap<>();
+        query.put("tool", tool);
+        query.put("latencyMs", nanos / 1_000_000);
+        query.put("afterReadyMs", readyAt == 0 ? null : (System.nanoTime() - readyAt) / 1_000_000);
+        if (firstQuery.compareAndSet(null, Collections.unmodifiableMap(query))) {
+            log.info("First tool query: {}", query);
+        }
+    }
+
+    public Map<String, Object> report() {
+        Map<String, Object> query = firstQuery.get();
+        if (query == null) {
+            return report;
+        }
+        Map<String, Object> merged = new LinkedHashMap<>(report);
+        merged.put("firstQuery", query);
+        return Collections.unmodifiableMap(merged);
+    }
+
+    private static long timeMillis(Runnable step) {
+        long start = System.nanoTime();
+        step.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
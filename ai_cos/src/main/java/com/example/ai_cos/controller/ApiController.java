@@ -1,36 +1,147 @@
 package com.example.ai_cos.controller;
 
+import com.example.ai_cos.config.ExecutorFactory;
+import com.example.ai_cos.dto.ClientRow;
+import com.example.ai_cos.dto.CursorPage;
+import com.example.ai_cos.dto.GenerationStatus;
+import com.example.ai_cos.dto.OrderRow;
 import com.example.ai_cos.model.Client;
 import com.example.ai_cos.model.Order;
+import com.example.ai_cos.resilience.UpstreamUnavailableException;
+import com.example.ai_cos.service.BulkDataGenerator;
+import com.example.ai_cos.service.ChatBatchService;
 import com.example.ai_cos.service.ChatService;
+import com.example.ai_cos.service.DataExportService;
 import com.example.ai_cos.service.DataGeneratorService;
+import com.example.ai_cos.service.GenerationInProgressException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api")
 public class ApiController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000;
+    private static final int NDJSON_FLUSH_ROWS = 500;
+
     private final ChatService chatService;
+    private final ChatBatchService chatBatchService;
     private final DataGeneratorService dataGeneratorService;
+    private final DataExportService dataExportService;
+    private final BulkDataGenerator bulkDataGenerator;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService streamExecutor;
 
-    public ApiController(ChatService chatService, DataGeneratorService dataGeneratorService) {
+    public ApiController(ChatService chatService, ChatBatchService chatBatchService,
+                         DataGeneratorService dataGeneratorService, DataExportService dataExportService,
+                         BulkDataGenerator bulkDataGenerator, ObjectMapper objectMapper,
+                         ExecutorFactory executorFactory) {
         this.chatService = chatService;
+        this.chatBatchService = chatBatchService;
         this.dataGeneratorService = dataGeneratorService;
+        this.dataExportService = dataExportService;
+        this.bulkDataGenerator = bulkDataGenerator;
+        this.objectMapper = objectMapper;
+        this.streamExecutor = executorFactory.create("chat-stream");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streamExecutor.close();
     }
 
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, String>> chat(@RequestBody Map<String, String> request) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> chat(@RequestBody Map<String, String> request) {
         String message = request.get("message");
-        String response = chatService.chat(message);
-        
-        Map<String, String> result = new HashMap<>();
-        result.put("response", response);
-        return ResponseEntity.ok(result);
+        String sessionId = request.get("sessionId");
+        return chatService.chatWithBreakdown(sessionId, message).thenApply(reply -> {
+            Map<String, String> result = new HashMap<>();
+            result.put("response", reply.response());
+            if (sessionId != null) {
+                result.put("sessionId", sessionId);
+            }
+            return ResponseEntity.ok()
+                    .header("Server-Timing", reply.breakdown().serverTiming())
+                    .body(result);
+        });
+    }
+
+    @PostMapping(value = "/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter chatStream(@RequestBody Map<String, String> request) {
+        String message = request.get("message");
+        String sessionId = request.get("sessionId");
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+
+        streamExecutor.execute(() -> {
+            try {
+                chatService.chatStream(sessionId, message, text -> {
+                    try {
+                        emitter.send(SseEmitter.event().name("chunk").data(Map.of("text", text)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(SseEmitter.event().name("done").data(""));
+                emitter.complete();
+            } catch (Exception e) {
+                try {
+                    emitter.send(SseEmitter.event().name("error").data(Map.of("text", "Błąd: " + e.getMessage())));
+                    emitter.complete();
+                } catch (Exception sendFailure) {
+                    emitter.completeWithError(e);
+                }
+            }
+        });
+        return emitter;
+    }
+
+    /** Answers many questions at once; one NDJSON line per question, in the order the answers finish. */
+    @PostMapping("/chat/batch")
+    public ResponseEntity<ResponseBodyEmitter> chatBatch(@RequestBody Map<String, List<String>> request) {
+        List<String> messages = request.get("messages");
+        chatBatchService.validate(messages);
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(chatBatchService.timeout().toMillis());
+
+        streamExecutor.execute(() -> {
+            try {
+                chatBatchService.run(messages, answer -> {
+                    try {
+                        emitter.send(answer, MediaType.APPLICATION_JSON);
+                        emitter.send("\n", MediaType.TEXT_PLAIN);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    @DeleteMapping("/chat/sessions/{sessionId}")
+    public ResponseEntity<Void> endChatSession(@PathVariable String sessionId) {
+        chatService.endSession(sessionId);
+        return ResponseEntity.noContent().build();
     }
 
     @PostMapping("/add-client")
@@ -56,27 +167,90 @@ public class ApiController {
         return ResponseEntity.ok(result);
     }
 
+    @PostMapping("/generate")
+    public ResponseEntity<GenerationStatus> generate(@RequestParam(defaultValue = "0") long clients,
+                                                     @RequestParam(defaultValue = "0") long orders) {
+        GenerationStatus status = bulkDataGenerator.start(clients, orders);
+        return ResponseEntity.accepted().location(URI.create("/api/generate/" + status.id())).body(status);
+    }
+
+    @GetMapping("/generate/{jobId}")
+    public ResponseEntity<GenerationStatus> generationStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(bulkDataGenerator.status(jobId));
+    }
+
     @GetMapping("/clients")
     public ResponseEntity<List<Client>> getAllClients() {
         return ResponseEntity.ok(dataGeneratorService.getAllClients());
     }
 
+    @GetMapping("/clients/page")
+    public ResponseEntity<CursorPage<ClientRow>> getClientsPage(@RequestParam(defaultValue = "0") long after,
+                                                                @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(dataExportService.pageClients(after, limit));
+    }
+
+    @GetMapping(value = "/clients/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamClients() {
+        StreamingResponseBody body = out -> writeNdjson(out, dataExportService::forEachClient);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/orders")
-    public ResponseEntity<List<Map<String, Object>>> getAllOrders() {
-        List<Order> orders = dataGeneratorService.getAllOrders();
-        List<Map<String, Object>> result = orders.stream().map(order -> {
-            Map<String, Object> map = new HashMap<>();
-            map.put("id", order.getId());
-            map.put("productName", order.getProductName());
-            map.put("quantity", order.getQuantity());
-            map.put("price", order.getPrice());
-            map.put("status", order.getStatus());
-            map.put("orderDate", order.getOrderDate().toString());
-            map.put("clientId", order.getClient().getId());
-            map.put("clientName", order.getClient().getFirstName() + " " + order.getClient().getLastName());
-            return map;
-        }).toList();
-        
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<OrderRow>> getAllOrders() {
+        return ResponseEntity.ok(dataExportService.getAllOrders());
+    }
+
+    @GetMapping("/orders/page")
+    public ResponseEntity<CursorPage<OrderRow>> getOrdersPage(@RequestParam(defaultValue = "0") long after,
+                                                              @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(dataExportService.pageOrders(after, limit));
+    }
+
+    @GetMapping(value = "/orders/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrders() {
+        StreamingResponseBody body = out -> writeNdjson(out, dataExportService::forEachOrder);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(GenerationInProgressException.class)
+    public ResponseEntity<Map<String, String>> handleGenerationInProgress(GenerationInProgressException e) {
+        return ResponseEntity.status(409)
+                .location(URI.create("/api/generate/" + e.getRunningJobId()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleUpstreamUnavailable(UpstreamUnavailableException e) {
+        return ResponseEntity.status(e.httpStatus())
+                .header("Retry-After", Long.toString(e.retryAfterSeconds()))
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    private <T> void writeNdjson(OutputStream out, Consumer<Consumer<T>> source) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            try {
+                source.accept(row -> {
+                    try {
+                        generator.writeObject(row);
+                        generator.writeRaw('\n');
+                        if (++written[0] % NDJSON_FLUSH_ROWS == 1) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
     }
 }
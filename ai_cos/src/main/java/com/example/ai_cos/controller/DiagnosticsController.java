@@ -0,0 +1,57 @@
+package com.example.ai_cos.controller;
+
+import com.example.ai_cos.config.StartupWarmup;
+import com.example.ai_cos.metrics.QueryProfiler;
+import com.example.ai_cos.service.ChatResponseCache;
+import com.example.ai_cos.service.ChatSessionStore;
+import com.example.ai_cos.service.ToolResultCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    private final ChatResponseCache chatResponseCache;
+    private final ToolResultCache toolResultCache;
+    private final StartupWarmup startupWarmup;
+    private final QueryProfiler queryProfiler;
+    private final ChatSessionStore chatSessionStore;
+
+    public DiagnosticsController(ChatResponseCache chatResponseCache, ToolResultCache toolResultCache,
+                                 StartupWarmup startupWarmup, QueryProfiler queryProfiler,
+                                 ChatSessionStore chatSessionStore) {
+        this.chatResponseCache = chatResponseCache;
+        this.toolResultCache = toolResultCache;
+        this.startupWarmup = startupWarmup;
+        this.queryProfiler = queryProfiler;
+        this.chatSessionStore = chatSessionStore;
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "chat", chatResponseCache.stats(),
+                "tools", toolResultCache.stats()));
+    }
+
+    @GetMapping("/sessions")
+    public ResponseEntity<Map<String, Object>> sessions() {
+        return ResponseEntity.ok(chatSessionStore.stats());
+    }
+
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> startup() {
+        return ResponseEntity.ok(startupWarmup.report());
+    }
+
+    @GetMapping("/queries")
+    public ResponseEntity<Map<String, Object>> queries(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(queryProfiler.report(limit));
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.ai_cos.dto;
+
+import java.time.LocalDate;
+
+public record ClientRow(Long id, String firstName, String lastName, String email, String phone,
+                        LocalDate registrationDate) {
+}
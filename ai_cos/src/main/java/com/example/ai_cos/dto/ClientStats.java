@@ -0,0 +1,15 @@
+package com.example.ai_cos.dto;
+
+import java.math.BigDecimal;
+
+public record ClientStats(Long clientId, String firstName, String lastName, Long orderCount, BigDecimal totalSpent) {
+
+    public ClientStats {
+        if (orderCount == null) {
+            orderCount = 0L;
+        }
+        if (totalSpent == null) {
+            totalSpent = BigDecimal.ZERO;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.ai_cos.dto;
+
+import java.time.LocalDate;
+
+public record ClientSummary(Long count, LocalDate firstRegistration, LocalDate lastRegistration) {
+}
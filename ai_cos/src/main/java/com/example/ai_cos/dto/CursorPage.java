@@ -0,0 +1,6 @@
+package com.example.ai_cos.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(List<T> items, Long nextCursor) {
+}
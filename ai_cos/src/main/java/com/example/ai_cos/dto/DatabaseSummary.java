@@ -0,0 +1,12 @@
+package com.example.ai_cos.dto;
+
+import java.math.BigDecimal;
+
+public record DatabaseSummary(Long clientCount, Long orderCount, BigDecimal totalRevenue) {
+
+    public DatabaseSummary {
+        if (totalRevenue == null) {
+            totalRevenue = BigDecimal.ZERO;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.ai_cos.dto;
+
+public record GenerationStatus(String id, State state, long clientsRequested, long clientsInserted,
+                               long ordersRequested, long ordersInserted, long elapsedMs, long rowsPerSecond,
+                               String error) {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
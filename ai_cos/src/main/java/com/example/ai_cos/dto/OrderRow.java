@@ -0,0 +1,10 @@
+package com.example.ai_cos.dto;
+
+import com.example.ai_cos.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderRow(Long id, String productName, Integer quantity, BigDecimal price, OrderStatus status,
+                       LocalDateTime orderDate, Long clientId, String clientName) {
+}
@@ -0,0 +1,8 @@
+package com.example.ai_cos.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderSummary(Long count, Long totalQuantity, BigDecimal minPrice, BigDecimal maxPrice, Double avgPrice,
+                           BigDecimal totalValue, LocalDateTime firstOrderDate, LocalDateTime lastOrderDate) {
+}
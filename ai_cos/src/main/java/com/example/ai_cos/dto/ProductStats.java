@@ -0,0 +1,15 @@
+package com.example.ai_cos.dto;
+
+import java.math.BigDecimal;
+
+public record ProductStats(String productName, Long orderCount, Long totalQuantity, BigDecimal totalValue) {
+
+    public ProductStats {
+        if (totalQuantity == null) {
+            totalQuantity = 0L;
+        }
+        if (totalValue == null) {
+            totalValue = BigDecimal.ZERO;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.ai_cos.dto;
+
+import com.example.ai_cos.model.OrderStatus;
+
+public record StatusCount(OrderStatus status, Long count) {
+}
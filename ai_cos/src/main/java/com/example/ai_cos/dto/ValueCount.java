@@ -0,0 +1,4 @@
+package com.example.ai_cos.dto;
+
+public record ValueCount(String value, Long count) {
+}
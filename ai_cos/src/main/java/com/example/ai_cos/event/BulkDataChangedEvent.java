@@ -0,0 +1,10 @@
+package com.example.ai_cos.event;
+
+import java.util.Set;
+
+/**
+ * Published after rows were written outside of JPA (JDBC batch inserts), where no
+ * {@link EntityChangedEvent} is raised per entity.
+ */
+public record BulkDataChangedEvent(Set<DataDomain> domains) {
+}
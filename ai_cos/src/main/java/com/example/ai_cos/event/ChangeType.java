@@ -0,0 +1,7 @@
+package com.example.ai_cos.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
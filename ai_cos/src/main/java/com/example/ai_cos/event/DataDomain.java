@@ -0,0 +1,19 @@
+package com.example.ai_cos.event;
+
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+
+public enum DataDomain {
+    CLIENTS,
+    ORDERS;
+
+    public static DataDomain of(Object entity) {
+        if (entity instanceof Client) {
+            return CLIENTS;
+        }
+        if (entity instanceof Order) {
+            return ORDERS;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.ai_cos.event;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EntityChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EntityChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entity, ChangeType.CREATED));
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entity, ChangeType.UPDATED));
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        eventPublisher.publishEvent(new EntityChangedEvent(entity, ChangeType.DELETED));
+    }
+}
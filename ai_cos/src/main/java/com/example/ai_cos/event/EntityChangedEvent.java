@@ -0,0 +1,4 @@
+package com.example.ai_cos.event;
+
+public record EntityChangedEvent(Object entity, ChangeType type) {
+}
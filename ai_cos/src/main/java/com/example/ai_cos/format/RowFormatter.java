@@ -0,0 +1,191 @@
+package com.example.ai_cos.format;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Renders tool results from {@link RowTemplate}s into pooled {@link StringBuilder}s. The pool
+ * keeps at most {@value #MAX_POOLED} builders of up to {@value #MAX_POOLED_CAPACITY} chars, so a
+ * burst of concurrent renders or one very long result does not stay in memory. Numbers are
+ * appended without going through {@link java.util.Formatter}: {@code %d} as plain digits and
+ * {@code %.2f} of a {@link BigDecimal} rounded half-up with the default locale's decimal
+ * separator, as {@code String.format} does. Anything else, or a locale with non-ASCII digits,
+ * falls back to {@code String.format}.
+ */
+public final class RowFormatter {
+
+    private static final int MAX_POOLED = 16;
+    private static final int MAX_POOLED_CAPACITY = 1 << 16;
+    private static final ArrayBlockingQueue<StringBuilder> POOL = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final long[] POWERS_OF_TEN = {1, 10, 100};
+
+    private static volatile Symbols symbols;
+
+    /** Rendered text and how many rows made it into it. */
+    public record Bounded(String text, int rows) {
+    }
+
+    private record Symbols(Locale locale, char decimalSeparator, boolean asciiDigits) {
+    }
+
+    private RowFormatter() {
+    }
+
+    /** Rows joined with {@code "\n"}, after {@code header} when it is not empty. */
+    public static <T> String lines(String header, Collection<? extends T> rows, RowTemplate<? super T> template) {
+        StringBuilder out = borrow(header.length() + rows.size() * 96);
+        out.append(header);
+        boolean first = true;
+        for (T row : rows) {
+            if (!first) {
+                out.append('\n');
+            }
+            first = false;
+            template.appendTo(out, row);
+        }
+        return release(out);
+    }
+
+    /** Like {@link #lines}, but stops before the row that would take the text past {@code maxChars}. */
+    public static <T> Bounded linesWithin(String header, Collection<? extends T> rows, RowTemplate<? super T> template,
+                                          int maxChars) {
+        StringBuilder out = borrow(Math.min(maxChars, header.length() + rows.size() * 96));
+        out.append(header);
+        int count = 0;
+        for (T row : rows) {
+            int before = out.length();
+            if (count > 0) {
+                out.append('\n');
+            }
+            template.appendTo(out, row);
+            if (out.length() > maxChars) {
+                out.setLength(before);
+                break;
+            }
+            count++;
+        }
+        return new Bounded(release(out), count);
+    }
+
+    /** {@code header}, then one {@code "<position>. <row>\n"} line per row, counting from 1. */
+    public static <T> String ranking(String header, Collection<? extends T> rows, RowTemplate<? super T> template) {
+        StringBuilder out = borrow(header.length() + rows.size() * 80);
+        out.append(header);
+        int position = 1;
+        for (T row : rows) {
+            out.append(position++).append(". ");
+            template.appendTo(out, row);
+            out.append('\n');
+        }
+        return release(out);
+    }
+
+    /**
+     * Like {@link #ranking}, numbered from {@code firstPosition} and joined with {@code "\n"},
+     * stopping before the row that would take the text past {@code maxChars}.
+     */
+    public static <T> Bounded rankingWithin(String header, Collection<? extends T> rows, RowTemplate<? super T> template,
+                                            int firstPosition, int maxChars) {
+        StringBuilder out = borrow(Math.min(maxChars, header.length() + rows.size() * 80));
+        out.append(header);
+        int count = 0;
+        for (T row : rows) {
+            int before = out.length();
+            if (count > 0) {
+                out.append('\n');
+            }
+            out.append(firstPosition + count).append(". ");
+            template.appendTo(out, row);
+            if (out.length() > maxChars) {
+                out.setLength(before);
+                break;
+            }
+            count++;
+        }
+        return new Bounded(release(out), count);
+    }
+
+    static StringBuilder borrow(int expectedLength) {
+        StringBuilder out = POOL.poll();
+        if (out == null) {
+            return new StringBuilder(Math.max(16, expectedLength));
+        }
+        out.ensureCapacity(expectedLength);
+        return out;
+    }
+
+    static String release(StringBuilder out) {
+        String text = out.toString();
+        if (out.capacity() <= MAX_POOLED_CAPACITY) {
+            out.setLength(0);
+            POOL.offer(out);
+        }
+        return text;
+    }
+
+    static int pooledBuilders() {
+        return POOL.size();
+    }
+
+    static void appendInteger(StringBuilder out, Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            if (symbols().asciiDigits()) {
+                out.append(((Number) value).longValue());
+                return;
+            }
+        } else if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append(String.format("%d", value));
+    }
+
+    static void appendFixed2(StringBuilder out, Object value) {
+        if (value == null) {
+            // String.format applies the precision to "null" as well
+            out.append("nu");
+            return;
+        }
+        Symbols current = symbols();
+        if (!(value instanceof BigDecimal decimal) || !current.asciiDigits()) {
+            out.append(String.format("%.2f", value));
+            return;
+        }
+        if (decimal.signum() < 0) {
+            out.append('-');
+        }
+        int scale = decimal.scale();
+        if (scale >= 0 && scale <= 2 && decimal.precision() <= 16) {
+            long unscaled = scale == 0 ? decimal.longValue() : decimal.unscaledValue().longValue();
+            long cents = Math.abs(unscaled) * POWERS_OF_TEN[2 - scale];
+            out.append(cents / 100).append(current.decimalSeparator());
+            long fraction = cents % 100;
+            if (fraction < 10) {
+                out.append('0');
+            }
+            out.append(fraction);
+            return;
+        }
+        String digits = decimal.abs().setScale(2, RoundingMode.HALF_UP).unscaledValue().toString();
+        if (digits.length() < 3) {
+            digits = "0".repeat(3 - digits.length()) + digits;
+        }
+        int integerDigits = digits.length() - 2;
+        out.append(digits, 0, integerDigits).append(current.decimalSeparator()).append(digits, integerDigits, digits.length());
+    }
+
+    private static Symbols symbols() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        Symbols current = symbols;
+        if (current == null || !current.locale().equals(locale)) {
+            DecimalFormatSymbols decimalSymbols = DecimalFormatSymbols.getInstance(locale);
+            current = new Symbols(locale, decimalSymbols.getDecimalSeparator(), decimalSymbols.getZeroDigit() == '0');
+            symbols = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.ai_cos.format;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link String#format} pattern parsed once, with one accessor per placeholder. Rendering
+ * appends literals and values straight into a {@link StringBuilder} and produces the same text
+ * {@code String.format} would in the default locale. Supported placeholders: {@code %s},
+ * {@code %d}, {@code %.2f} and {@code %%}.
+ */
+public final class RowTemplate<T> {
+
+    private static final char TEXT = 's';
+    private static final char INTEGER = 'd';
+    private static final char FIXED_2 = 'f';
+
+    private final String[] literals;
+    private final char[] kinds;
+    private final Function<? super T, ?>[] fields;
+
+    private RowTemplate(String[] literals, char[] kinds, Function<? super T, ?>[] fields) {
+        this.literals = literals;
+        this.kinds = kinds;
+        this.fields = fields;
+    }
+
+    @SafeVarargs
+    public static <T> RowTemplate<T> compile(String pattern, Function<? super T, ?>... fields) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder kinds = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (pattern.startsWith("%%", i)) {
+                literal.append('%');
+                i++;
+                continue;
+            }
+            char kind;
+            if (pattern.startsWith("%s", i) || pattern.startsWith("%d", i)) {
+                kind = pattern.charAt(i + 1);
+                i++;
+            } else if (pattern.startsWith("%.2f", i)) {
+                kind = FIXED_2;
+                i += 3;
+            } else {
+                throw new IllegalArgumentException("Unsupported placeholder at " + i + " in: " + pattern);
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            kinds.append(kind);
+        }
+        literals.add(literal.toString());
+        if (kinds.length() != fields.length) {
+            throw new IllegalArgumentException(kinds.length() + " placeholders but " + fields.length + " fields in: " + pattern);
+        }
+        return new RowTemplate<>(literals.toArray(String[]::new), kinds.toString().toCharArray(), fields.clone());
+    }
+
+    public void appendTo(StringBuilder out, T row) {
+        out.append(literals[0]);
+        for (int i = 0; i < kinds.length; i++) {
+            Object value = fields[i].apply(row);
+            switch (kinds[i]) {
+                case INTEGER -> RowFormatter.appendInteger(out, value);
+                case FIXED_2 -> RowFormatter.appendFixed2(out, value);
+                default -> out.append(value);
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+
+    public String format(T row) {
+        StringBuilder out = RowFormatter.borrow(64);
+        appendTo(out, row);
+        return RowFormatter.release(out);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.ai_cos.metrics;
+
+import com.example.ai_cos.resilience.UpstreamUnavailableException;
+import com.example.ai_cos.service.GeminiApiException;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpTimeoutException;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Meters for chat requests and their Gemini round trips. The first request of a conversation
+ * carries only the question; follow-ups also carry tool results, so their latency is tracked
+ * separately through the {@code phase} tag.
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String PHASE_INITIAL = "initial";
+    public static final String PHASE_FOLLOW_UP = "follow_up";
+
+    private final MeterRegistry registry;
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordGeminiCall(String phase, String mode, long nanos, Throwable error) {
+        Timer.builder("gemini.requests")
+                .description("Gemini generateContent round trips")
+                .tag("phase", phase)
+                .tag("mode", mode)
+                .tag("outcome", error == null ? "success" : "error")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            registry.counter("gemini.errors", "phase", phase, "reason", reason(error)).increment();
+        }
+    }
+
+    public void recordUsage(JsonNode usageMetadata) {
+        if (usageMetadata == null || usageMetadata.isMissingNode()) {
+            return;
+        }
+        incrementTokens("prompt", usageMetadata.path("promptTokenCount").asLong());
+        incrementTokens("candidates", usageMetadata.path("candidatesTokenCount").asLong());
+        incrementTokens("total", usageMetadata.path("totalTokenCount").asLong());
+    }
+
+    public void recordChat(String mode, boolean cached, boolean failed, RequestBreakdown breakdown) {
+        Timer.builder("chat.requests")
+                .description("Chat requests end to end")
+                .tag("mode", mode)
+                .tag("cached", Boolean.toString(cached))
+                .tag("outcome", failed ? "error" : "success")
+                .register(registry)
+                .record(breakdown.totalNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /** Counts a caller that joined an identical computation already in flight instead of starting its own. */
+    public void recordCoalesced(String level) {
+        registry.counter("coalesced.calls", "level", level).increment();
+    }
+
+    private void incrementTokens(String type, long tokens) {
+        if (tokens > 0) {
+            registry.counter("gemini.tokens", "type", type).increment(tokens);
+        }
+    }
+
+    private static String reason(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof UpstreamUnavailableException unavailable) {
+            return "rejected_" + unavailable.getReason().name().toLowerCase(Locale.ROOT);
+        }
+        if (cause instanceof GeminiApiException apiException) {
+            return "http_" + apiException.getStatusCode();
+        }
+        if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        return cause.getClass().getSimpleName();
+    }
+}
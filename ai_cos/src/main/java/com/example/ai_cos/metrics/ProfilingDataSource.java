@@ -0,0 +1,184 @@
+package com.example.ai_cos.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps connections in JDK proxies that time every {@code execute*} call and report it to the
+ * {@link QueryProfiler}. Result sets are wrapped only for sampled statements, to count rows;
+ * everything else is passed straight to the driver. The profiler is resolved on first use, so
+ * wrapping the data source does not pull other beans into early initialization.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<QueryProfiler> profilerProvider;
+    private volatile QueryProfiler profiler;
+
+    public ProfilingDataSource(DataSource target, ObjectProvider<QueryProfiler> profilerProvider) {
+        super(target);
+        this.profilerProvider = profilerProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    private QueryProfiler profiler() {
+        QueryProfiler current = profiler;
+        if (current == null) {
+            current = profilerProvider.getObject();
+            profiler = current;
+        }
+        return current;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ProfilingDataSource.invoke(connection, method, args);
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return proxy(method.getReturnType(), new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private String batchSql;
+
+        private StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.equals("addBatch") && args != null && args.length == 1) {
+                    batchSql = (String) args[0];
+                }
+                return ProfilingDataSource.invoke(statement, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String text
+                    ? text
+                    : preparedSql != null ? preparedSql : batchSql;
+            long start = System.nanoTime();
+            Object result = ProfilingDataSource.invoke(statement, method, args);
+            long nanos = System.nanoTime() - start;
+
+            QueryProfiler profiler = profiler();
+            if (!profiler.onStatement(sql, nanos)) {
+                return result;
+            }
+            if (result instanceof ResultSet resultSet) {
+                return proxy(ResultSet.class, new RowCountingHandler(resultSet, sql, nanos, profiler));
+            }
+            profiler.addSample(sql, nanos, affectedRows(result));
+            return result;
+        }
+
+        private static long affectedRows(Object result) {
+            if (result instanceof Number count) {
+                return count.longValue();
+            }
+            long rows = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    rows += Math.max(0, count);
+                }
+                return rows;
+            }
+            if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    rows += Math.max(0, count);
+                }
+                return rows;
+            }
+            return -1;
+        }
+    }
+
+    /** Counts {@code next()} hits and reports the sample when the result set is closed. */
+    private static final class RowCountingHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final String sql;
+        private final long nanos;
+        private final QueryProfiler profiler;
+        private long rows;
+        private boolean reported;
+
+        private RowCountingHandler(ResultSet resultSet, String sql, long nanos, QueryProfiler profiler) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.nanos = nanos;
+            this.profiler = profiler;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = ProfilingDataSource.invoke(resultSet, method, args);
+            switch (method.getName()) {
+                case "next" -> {
+                    if (Boolean.TRUE.equals(result)) {
+                        rows++;
+                    }
+                }
+                case "close" -> {
+                    if (!reported) {
+                        reported = true;
+                        profiler.addSample(sql, nanos, rows);
+                    }
+                }
+                default -> {
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.ai_cos.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Statement profiler fed by {@link ProfilingDataSource}. Every statement is timed into the open
+ * {@link QueryTimingScope}s and checked for N+1 repeats; only a sampled fraction is fingerprinted
+ * and written, with its duration and row count, into lock-free ring buffers striped by thread.
+ * {@link #report(int)} aggregates the buffers into the statements with the highest total time
+ * among the recent samples.
+ */
+@Component
+public class QueryProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryProfiler.class);
+
+    private static final Pattern VALUE_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final int MAX_FINGERPRINTS = 1024;
+
+    record Sample(String fingerprint, long nanos, long rows) {
+    }
+
+    public record NPlusOne(String fingerprint, String context, Instant detectedAt) {
+    }
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int nPlusOneThreshold;
+    private final RingBuffer<Sample>[] stripes;
+    private final RingBuffer<NPlusOne> detections;
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Counter nPlusOneCounter;
+
+    @SuppressWarnings("unchecked")
+    public QueryProfiler(@Value("${app.query-profiler.enabled:true}") boolean enabled,
+                         @Value("${app.query-profiler.sample-rate:0.1}") double sampleRate,
+                         @Value("${app.query-profiler.n-plus-one-threshold:10}") int nPlusOneThreshold,
+                         @Value("${app.query-profiler.ring-size:4096}") int ringSize,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        this.stripes = new RingBuffer[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new RingBuffer<>(Math.max(16, ringSize / stripeCount));
+        }
+        this.detections = new RingBuffer<>(64);
+        this.nPlusOneCounter = Counter.builder("db.n_plus_one")
+                .description("Statements repeated more than the N+1 threshold within one request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Called after every statement execution. The statement is always added to the open
+     * {@link QueryTimingScope}s; N+1 detection and sampling only run while the profiler is enabled.
+     *
+     * @return whether the statement is sampled; if so the caller reports it through {@link #addSample}
+     */
+    boolean onStatement(String sql, long nanos) {
+        int repeats = QueryTimingScope.record(sql, nanos);
+        if (!enabled) {
+            return false;
+        }
+        if (repeats == nPlusOneThreshold + 1) {
+            NPlusOne detection = new NPlusOne(fingerprint(sql), QueryTimingScope.currentLabel(), Instant.now());
+            detections.add(detection);
+            nPlusOneCounter.increment();
+            log.warn("Possible N+1 in {}: statement ran more than {} times: {}",
+                    detection.context(), nPlusOneThreshold, detection.fingerprint());
+        }
+        return sql != null && sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    void addSample(String sql, long nanos, long rows) {
+        int stripe = (int) Thread.currentThread().threadId() & (stripes.length - 1);
+        stripes[stripe].add(new Sample(fingerprint(sql), nanos, rows));
+    }
+
+    public Map<String, Object> report(int limit) {
+        Map<String, long[]> totals = new HashMap<>();
+        int samples = 0;
+        for (RingBuffer<Sample> stripe : stripes) {
+            for (Sample sample : stripe.snapshot()) {
+                long[] total = totals.computeIfAbsent(sample.fingerprint(), key -> new long[4]);
+                total[0]++;
+                total[1] += sample.nanos();
+                total[2] = Math.max(total[2], sample.nanos());
+                total[3] += Math.max(0, sample.rows());
+                samples++;
+            }
+        }
+
+        List<Map.Entry<String, long[]>> ranked = new ArrayList<>(totals.entrySet());
+        ranked.sort(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[1]).reversed());
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : ranked.subList(0, Math.min(Math.max(0, limit), ranked.size()))) {
+            long[] total = entry.getValue();
+            Map<String, Object> statement = new LinkedHashMap<>();
+            statement.put("fingerprint", entry.getKey());
+            statement.put("samples", total[0]);
+            statement.put("estimatedExecutions", Math.round(total[0] / sampleRate));
+            statement.put("totalMs", total[1] / 1_000_000.0);
+            statement.put("avgMs", total[1] / 1_000_000.0 / total[0]);
+            statement.put("maxMs", total[2] / 1_000_000.0);
+            statement.put("avgRows", (double) total[3] / total[0]);
+            top.add(statement);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sampleRate", sampleRate);
+        report.put("samples", samples);
+        report.put("nPlusOneThreshold", nPlusOneThreshold);
+        report.put("top", top);
+        report.put("nPlusOne", detections.snapshot());
+        return report;
+    }
+
+    private String fingerprint(String sql) {
+        if (sql == null) {
+            return "?";
+        }
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint == null) {
+            if (fingerprints.size() >= MAX_FINGERPRINTS) {
+                fingerprints.clear();
+            }
+            fingerprint = fingerprints.computeIfAbsent(sql, QueryProfiler::normalize);
+        }
+        return fingerprint;
+    }
+
+    /** Collapses whitespace, replaces literals with {@code ?} and value lists with {@code (?...)}. */
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !out.isEmpty();
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                i = skipStringLiteral(sql, i);
+                out.append('?');
+            } else if (Character.isDigit(c) && !partOfIdentifier(out)) {
+                while (i + 1 < sql.length() && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else {
+                out.append(c);
+            }
+        }
+        return VALUE_LIST.matcher(out).replaceAll("(?...)");
+    }
+
+    private static int skipStringLiteral(String sql, int openingQuote) {
+        int i = openingQuote + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean partOfIdentifier(StringBuilder out) {
+        if (out.isEmpty()) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_';
+    }
+}
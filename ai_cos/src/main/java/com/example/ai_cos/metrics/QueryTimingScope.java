@@ -0,0 +1,103 @@
+package com.example.ai_cos.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects JDBC statement time on the current thread while open. Scopes nest: a statement is
+ * added to the innermost scope and all of its parents, so a chat request and the tool it calls
+ * can both see the same queries. The outermost scope stands for the request and also counts
+ * repeats of each SQL string, for N+1 detection. Work handed to another thread, such as chat
+ * tool calls, opens its scope with {@link #open(QueryTimingScope, String)} under the scope
+ * captured by {@link #current()}, so its statements still count towards the request; that is
+ * why the counters are safe to update from several threads. Fed by {@link ProfilingDataSource}.
+ */
+public final class QueryTimingScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryTimingScope> CURRENT = new ThreadLocal<>();
+
+    private final QueryTimingScope parent;
+    private final QueryTimingScope previous;
+    private final String label;
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicInteger statements = new AtomicInteger();
+    private final Map<String, AtomicInteger> repeats;
+
+    private QueryTimingScope(QueryTimingScope parent, QueryTimingScope previous, String label) {
+        this.parent = parent;
+        this.previous = previous;
+        this.label = label;
+        this.repeats = parent == null ? new ConcurrentHashMap<>() : null;
+    }
+
+    public static QueryTimingScope open() {
+        return open(null);
+    }
+
+    /** @param label what the scope covers, e.g. {@code "tool getOrderCount"}; shown in N+1 reports */
+    public static QueryTimingScope open(String label) {
+        return open(CURRENT.get(), label);
+    }
+
+    /**
+     * Opens a scope on this thread under {@code parent}, which may belong to another thread,
+     * e.g. the request that handed work to this one; {@code null} opens a new root.
+     */
+    public static QueryTimingScope open(QueryTimingScope parent, String label) {
+        QueryTimingScope scope = new QueryTimingScope(parent, CURRENT.get(), label);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** The innermost scope open on this thread, or {@code null}. */
+    public static QueryTimingScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds a statement to every open scope.
+     *
+     * @return how many times the request scope has now executed {@code sql}, 0 outside any scope
+     */
+    static int record(String sql, long statementNanos) {
+        QueryTimingScope root = null;
+        for (QueryTimingScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.nanos.add(statementNanos);
+            scope.statements.incrementAndGet();
+            root = scope;
+        }
+        if (root == null || sql == null) {
+            return 0;
+        }
+        return root.repeats.computeIfAbsent(sql, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /** Label of the innermost labelled scope on this thread, or {@code null}. */
+    static String currentLabel() {
+        for (QueryTimingScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            if (scope.label != null) {
+                return scope.label;
+            }
+        }
+        return null;
+    }
+
+    public long nanos() {
+        return nanos.sum();
+    }
+
+    public int statements() {
+        return statements.get();
+    }
+
+    @Override
+    public void close() {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ai_cos.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time of one chat request went: Gemini round trips, tool calls and the database
+ * statements those tools ran. Tool calls may run in parallel, so tool and DB times are sums
+ * and can exceed the wall-clock total.
+ */
+public class RequestBreakdown {
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder llmNanos = new LongAdder();
+    private final LongAdder llmCalls = new LongAdder();
+    private final LongAdder toolNanos = new LongAdder();
+    private final LongAdder toolCalls = new LongAdder();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAdder dbStatements = new LongAdder();
+
+    public void addLlmCall(long nanos) {
+        llmNanos.add(nanos);
+        llmCalls.increment();
+    }
+
+    public void addToolCall(long nanos, long statementNanos, int statements) {
+        toolNanos.add(nanos);
+        toolCalls.increment();
+        dbNanos.add(statementNanos);
+        dbStatements.add(statements);
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /** Value for the {@code Server-Timing} response header. */
+    public String serverTiming() {
+        return String.format(Locale.ROOT, "llm;dur=%.1f, tools;dur=%.1f, db;dur=%.1f, total;dur=%.1f",
+                millis(llmNanos.sum()), millis(toolNanos.sum()), millis(dbNanos.sum()), millis(totalNanos()));
+    }
+
+    public String summary() {
+        return String.format(Locale.ROOT, "llm=%.1fms (%d calls), tools=%.1fms (%d calls), db=%.1fms (%d statements), total=%.1fms",
+                millis(llmNanos.sum()), llmCalls.sum(), millis(toolNanos.sum()), toolCalls.sum(),
+                millis(dbNanos.sum()), dbStatements.sum(), millis(totalNanos()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ai_cos.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size buffer keeping the most recent entries. Writers claim a slot with one atomic
+ * increment and never block; a snapshot taken during writes may miss the newest entries.
+ */
+final class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private final int mask;
+
+    RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    void add(T entry) {
+        slots.lazySet((int) (cursor.getAndIncrement() & mask), entry);
+    }
+
+    /** Entries from newest to oldest. */
+    List<T> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length());
+        List<T> entries = new ArrayList<>((int) (end - start));
+        for (long i = end - 1; i >= start; i--) {
+            T entry = slots.get((int) (i & mask));
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+}
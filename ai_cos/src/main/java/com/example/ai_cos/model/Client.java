@@ -1,5 +1,6 @@
 package com.example.ai_cos.model;
 
+import com.example.ai_cos.event.EntityChangeListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
@@ -7,7 +8,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "clients")
+@Table(name = "clients", indexes = {
+        @Index(name = "idx_clients_first_name_norm", columnList = "first_name_norm"),
+        @Index(name = "idx_clients_last_name_norm", columnList = "last_name_norm")
+})
+@EntityListeners(EntityChangeListener.class)
 public class Client {
 
     @Id
@@ -25,6 +30,12 @@ public class Client {
 
     private String phone;
 
+    @Column(name = "first_name_norm", nullable = false)
+    private String firstNameNorm;
+
+    @Column(name = "last_name_norm", nullable = false)
+    private String lastNameNorm;
+
     private LocalDate registrationDate;
 
     @JsonIgnore
@@ -42,6 +53,13 @@ public class Client {
         this.registrationDate = LocalDate.now();
     }
 
+    @PrePersist
+    @PreUpdate
+    void normalizeNames() {
+        this.firstNameNorm = TextNormalizer.normalize(firstName);
+        this.lastNameNorm = TextNormalizer.normalize(lastName);
+    }
+
     public Long getId() {
         return id;
     }
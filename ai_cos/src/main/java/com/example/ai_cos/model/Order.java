@@ -1,12 +1,19 @@
 package com.example.ai_cos.model;
 
+import com.example.ai_cos.event.EntityChangeListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_client_id", columnList = "client_id"),
+        @Index(name = "idx_orders_status", columnList = "status"),
+        @Index(name = "idx_orders_order_date", columnList = "order_date"),
+        @Index(name = "idx_orders_product_name_norm", columnList = "product_name_norm")
+})
+@EntityListeners(EntityChangeListener.class)
 public class Order {
 
     @Id
@@ -16,6 +23,9 @@ public class Order {
     @Column(nullable = false)
     private String productName;
 
+    @Column(name = "product_name_norm", nullable = false)
+    private String productNameNorm;
+
     @Column(nullable = false)
     private Integer quantity;
 
@@ -45,6 +55,12 @@ public class Order {
         this.status = OrderStatus.NEW;
     }
 
+    @PrePersist
+    @PreUpdate
+    void normalizeProductName() {
+        this.productNameNorm = TextNormalizer.normalize(productName);
+    }
+
     public Long getId() {
         return id;
     }
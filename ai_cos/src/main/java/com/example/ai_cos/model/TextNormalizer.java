@@ -0,0 +1,41 @@
+package com.example.ai_cos.model;
+
+import java.text.Normalizer;
+
+/**
+ * Folds text to the form stored in the {@code *_norm} search columns: trimmed, lower case and
+ * without diacritics, so "Łukasz Wiśniewski" is found by "lukasz wisniewski".
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(text.trim(), Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'ł' || c == 'Ł') {
+                folded.append('l');
+            } else {
+                folded.append(Character.toLowerCase(c));
+            }
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Exclusive upper bound for a prefix range scan: {@code col >= prefix AND col < upperBound(prefix)}
+     * selects the same rows as {@code col LIKE 'prefix%'} but is always served by an index.
+     */
+    public static String prefixUpperBound(String prefix) {
+        return prefix + Character.MAX_VALUE;
+    }
+}
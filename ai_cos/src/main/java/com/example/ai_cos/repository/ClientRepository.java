@@ -1,12 +1,24 @@
 package com.example.ai_cos.repository;
 
+import com.example.ai_cos.dto.ClientRow;
+import com.example.ai_cos.dto.ClientSummary;
+import com.example.ai_cos.dto.ValueCount;
 import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.TextNormalizer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
@@ -17,8 +29,64 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     
     List<Client> findByLastNameContainingIgnoreCase(String lastName);
     
-    @Query("SELECT c FROM Client c WHERE LOWER(c.firstName) LIKE LOWER(CONCAT('%', :name, '%')) OR LOWER(c.lastName) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Client> searchByName(String name);
+    @Query("SELECT c FROM Client c WHERE c.firstNameNorm >= :from AND c.firstNameNorm < :to")
+    List<Client> findByFirstNameNormRange(String from, String to);
+
+    @Query("SELECT c FROM Client c WHERE c.lastNameNorm >= :from AND c.lastNameNorm < :to")
+    List<Client> findByLastNameNormRange(String from, String to);
+
+    @Query("SELECT c FROM Client c WHERE c.firstNameNorm LIKE CONCAT('%', :text, '%') OR c.lastNameNorm LIKE CONCAT('%', :text, '%') ORDER BY c.id")
+    List<Client> findByNameNormContaining(String text);
+
+    /**
+     * Clients whose normalized first or last name starts with the query, found through the name
+     * indexes. Only when no name starts with it are the normalized columns scanned for names
+     * containing it, like the plain substring search this replaces.
+     */
+    default List<Client> searchByName(String name) {
+        if (name == null) {
+            return List.of();
+        }
+        String prefix = TextNormalizer.normalize(name);
+        String upperBound = TextNormalizer.prefixUpperBound(prefix);
+        Map<Long, Client> prefixMatches = new TreeMap<>();
+        findByFirstNameNormRange(prefix, upperBound).forEach(c -> prefixMatches.put(c.getId(), c));
+        findByLastNameNormRange(prefix, upperBound).forEach(c -> prefixMatches.put(c.getId(), c));
+        return prefixMatches.isEmpty() ? findByNameNormContaining(prefix) : new ArrayList<>(prefixMatches.values());
+    }
     
     List<Client> findByFirstNameIgnoreCaseAndLastNameIgnoreCase(String firstName, String lastName);
+
+    @Query("SELECT MIN(c.id) FROM Client c")
+    Long findMinId();
+
+    @Query("SELECT MAX(c.id) FROM Client c")
+    Long findMaxId();
+
+    /**
+     * Ranges of ids below the highest one that no row has, as {@code [first, last]} pairs:
+     * deleted rows and ids taken by transactions that have not committed yet.
+     */
+    @Query(value = "SELECT prev_id + 1, id - 1 FROM (SELECT id, LAG(id, 1, 0) OVER (ORDER BY id) AS prev_id FROM clients) t " +
+                   "WHERE id - prev_id > 1", nativeQuery = true)
+    List<Object[]> findIdGaps();
+
+    Optional<Client> findFirstByIdGreaterThanEqualOrderByIdAsc(Long id);
+
+    @Query("SELECT new com.example.ai_cos.dto.ClientSummary(COUNT(c), MIN(c.registrationDate), MAX(c.registrationDate)) FROM Client c")
+    ClientSummary summarizeClients();
+
+    @Query("SELECT new com.example.ai_cos.dto.ValueCount(c.lastName, COUNT(c)) FROM Client c " +
+           "GROUP BY c.lastName ORDER BY COUNT(c) DESC, c.lastName")
+    List<ValueCount> getLastNameCounts(Pageable pageable);
+
+    String CLIENT_ROW = "SELECT new com.example.ai_cos.dto.ClientRow(c.id, c.firstName, c.lastName, c.email, c.phone, " +
+                        "c.registrationDate) FROM Client c ";
+
+    @Query(CLIENT_ROW + "WHERE c.id > :afterId ORDER BY c.id")
+    List<ClientRow> findRowsAfter(Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(CLIENT_ROW + "ORDER BY c.id")
+    Stream<ClientRow> streamAllRows();
 }
@@ -1,20 +1,59 @@
 package com.example.ai_cos.repository;
 
+import com.example.ai_cos.dto.ClientStats;
+import com.example.ai_cos.dto.DatabaseSummary;
+import com.example.ai_cos.dto.OrderRow;
+import com.example.ai_cos.dto.OrderSummary;
+import com.example.ai_cos.dto.ProductStats;
+import com.example.ai_cos.dto.StatusCount;
 import com.example.ai_cos.model.Order;
 import com.example.ai_cos.model.OrderStatus;
+import com.example.ai_cos.model.TextNormalizer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByClientId(Long clientId);
-    List<Order> findByStatus(OrderStatus status);
+    Page<Order> findByStatus(OrderStatus status, Pageable pageable);
     
-    List<Order> findByProductNameContainingIgnoreCase(String productName);
+    @Query("SELECT o FROM Order o JOIN FETCH o.client WHERE o.productNameNorm >= :from AND o.productNameNorm < :to ORDER BY o.id")
+    List<Order> findByProductNameNormRange(String from, String to);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.client WHERE o.productNameNorm LIKE CONCAT('%', :text, '%') ORDER BY o.id")
+    List<Order> findByProductNameNormContaining(String text);
+
+    @Query(value = "SELECT o FROM Order o JOIN FETCH o.client WHERE o.productNameNorm IN :norms",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.productNameNorm IN :norms")
+    Page<Order> findByProductNameNormIn(Collection<String> norms, Pageable pageable);
+
+    @Query("SELECT DISTINCT o.productName FROM Order o")
+    List<String> findDistinctProductNames();
+
+    /**
+     * Orders whose normalized product name starts with the query, found through the index, with
+     * the client fetched in the same query. Only when no product name starts with it is the
+     * normalized column scanned for names containing it.
+     */
+    default List<Order> searchByProductName(String productName) {
+        if (productName == null) {
+            return List.of();
+        }
+        String prefix = TextNormalizer.normalize(productName);
+        List<Order> prefixMatches = findByProductNameNormRange(prefix, TextNormalizer.prefixUpperBound(prefix));
+        return prefixMatches.isEmpty() ? findByProductNameNormContaining(prefix) : prefixMatches;
+    }
     
     @Query("SELECT SUM(o.price * o.quantity) FROM Order o WHERE o.client.id = :clientId")
     BigDecimal getTotalSpentByClient(Long clientId);
@@ -27,4 +66,74 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @Query("SELECT AVG(o.price * o.quantity) FROM Order o")
     BigDecimal getAverageOrderValue();
+
+    @Query("SELECT new com.example.ai_cos.dto.ClientStats(c.id, c.firstName, c.lastName, COUNT(o), SUM(o.price * o.quantity)) " +
+           "FROM Client c LEFT JOIN c.orders o " +
+           "GROUP BY c.id, c.firstName, c.lastName " +
+           "ORDER BY COUNT(o) DESC, c.id")
+    List<ClientStats> getClientStatsByOrderCount();
+
+    @Query("SELECT new com.example.ai_cos.dto.ClientStats(c.id, c.firstName, c.lastName, COUNT(o), SUM(o.price * o.quantity)) " +
+           "FROM Client c LEFT JOIN c.orders o " +
+           "GROUP BY c.id, c.firstName, c.lastName " +
+           "ORDER BY COUNT(o) DESC, c.id")
+    List<ClientStats> getClientStatsByOrderCount(Pageable pageable);
+
+    @Query("SELECT new com.example.ai_cos.dto.ClientStats(c.id, c.firstName, c.lastName, COUNT(o), SUM(o.price * o.quantity)) " +
+           "FROM Client c LEFT JOIN c.orders o " +
+           "GROUP BY c.id, c.firstName, c.lastName " +
+           "ORDER BY SUM(o.price * o.quantity) DESC NULLS LAST, c.id")
+    List<ClientStats> getClientStatsBySpending(Pageable pageable);
+
+    @Query("SELECT new com.example.ai_cos.dto.ProductStats(o.productName, COUNT(o), SUM(o.quantity), SUM(o.price * o.quantity)) " +
+           "FROM Order o " +
+           "GROUP BY o.productName " +
+           "ORDER BY COUNT(o) DESC, o.productName")
+    List<ProductStats> getProductStats();
+
+    @Query("SELECT new com.example.ai_cos.dto.ProductStats(o.productName, COUNT(o), SUM(o.quantity), SUM(o.price * o.quantity)) " +
+           "FROM Order o WHERE o.status = :status " +
+           "GROUP BY o.productName " +
+           "ORDER BY COUNT(o) DESC, o.productName")
+    List<ProductStats> getProductStatsByStatus(OrderStatus status, Pageable pageable);
+
+    String ORDER_SUMMARY = "SELECT new com.example.ai_cos.dto.OrderSummary(COUNT(o), SUM(o.quantity), MIN(o.price), MAX(o.price), " +
+                           "AVG(o.price), SUM(o.price * o.quantity), MIN(o.orderDate), MAX(o.orderDate)) FROM Order o ";
+
+    @Query(ORDER_SUMMARY)
+    OrderSummary summarizeOrders();
+
+    @Query(ORDER_SUMMARY + "WHERE o.status = :status")
+    OrderSummary summarizeOrdersByStatus(OrderStatus status);
+
+    @Query("SELECT new com.example.ai_cos.dto.DatabaseSummary((SELECT COUNT(c) FROM Client c), COUNT(o), SUM(o.price * o.quantity)) " +
+           "FROM Order o")
+    DatabaseSummary getDatabaseSummary();
+
+    @Query("SELECT new com.example.ai_cos.dto.StatusCount(o.status, COUNT(o)) FROM Order o GROUP BY o.status")
+    List<StatusCount> getStatusCounts();
+
+    @Query("SELECT MAX(o.id) FROM Order o")
+    Long findMaxId();
+
+    /**
+     * Ranges of ids below the highest one that no row has, as {@code [first, last]} pairs:
+     * deleted rows and ids taken by transactions that have not committed yet.
+     */
+    @Query(value = "SELECT prev_id + 1, id - 1 FROM (SELECT id, LAG(id, 1, 0) OVER (ORDER BY id) AS prev_id FROM orders) t " +
+                   "WHERE id - prev_id > 1", nativeQuery = true)
+    List<Object[]> findIdGaps();
+
+    String ORDER_ROW = "SELECT new com.example.ai_cos.dto.OrderRow(o.id, o.productName, o.quantity, o.price, o.status, " +
+                       "o.orderDate, c.id, CONCAT(c.firstName, ' ', c.lastName)) FROM Order o JOIN o.client c ";
+
+    @Query(ORDER_ROW + "ORDER BY o.id")
+    List<OrderRow> findAllRows();
+
+    @Query(ORDER_ROW + "WHERE o.id > :afterId ORDER BY o.id")
+    List<OrderRow> findRowsAfter(Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(ORDER_ROW + "ORDER BY o.id")
+    Stream<OrderRow> streamAllRows();
 }
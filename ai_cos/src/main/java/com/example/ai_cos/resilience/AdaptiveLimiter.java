@@ -0,0 +1,184 @@
+package com.example.ai_cos.resilience;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for calls to a remote service that follows how the service copes (AIMD).
+ * The limit grows by one for every limit's worth of successful calls made while it was at
+ * least half used. It shrinks by {@code backoffRatio} when a call is dropped (rate limited,
+ * overloaded, timed out) or when the short-term average latency rises above
+ * {@code latencyTolerance} times the long-term one, a sign that the service is queueing.
+ * <p>
+ * Callers over the limit wait in a bounded FIFO queue. A caller is shed at once when the queue
+ * is full or when its deadline leaves no time to wait its turn and make the call. It leaves the
+ * queue when its deadline passes.
+ */
+public class AdaptiveLimiter {
+
+    public enum Outcome {
+        SUCCESS,
+        DROPPED,
+        IGNORED
+    }
+
+    private static final double SHORT_RTT_WEIGHT = 0.2;
+    private static final double LONG_RTT_WEIGHT = 0.02;
+
+    private record Waiter(CompletableFuture<Permit> future, long deadlineNanos) {
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                           double backoffRatio, double latencyTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * A permit to make one call, completed now or once a slot frees up. Fails with
+     * {@link UpstreamUnavailableException} when the caller is shed or its deadline passes.
+     */
+    public CompletableFuture<Permit> acquire(long deadlineNanos) {
+        Waiter waiter;
+        long remaining;
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && queue.isEmpty()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(inFlight));
+            }
+            if (queue.size() >= maxQueue) {
+                return CompletableFuture.failedFuture(
+                        new UpstreamUnavailableException(UpstreamUnavailableException.Reason.QUEUE_FULL, expectedWait(queue.size())));
+            }
+            remaining = deadlineNanos - System.nanoTime();
+            Duration expected = expectedWait(queue.size() + 1);
+            if (remaining < expected.toNanos() + (long) longRttNanos) {
+                return CompletableFuture.failedFuture(
+                        new UpstreamUnavailableException(UpstreamUnavailableException.Reason.DEADLINE, expected));
+            }
+            waiter = new Waiter(new CompletableFuture<>(), deadlineNanos);
+            queue.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(() -> expire(waiter));
+        return waiter.future();
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Time for {@code position} queued callers to get a slot, assuming calls take the long-term average. */
+    private Duration expectedWait(int position) {
+        return Duration.ofNanos((long) (position / limit * longRttNanos));
+    }
+
+    private void expire(Waiter waiter) {
+        lock.lock();
+        try {
+            if (!queue.remove(waiter)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        waiter.future().completeExceptionally(
+                new UpstreamUnavailableException(UpstreamUnavailableException.Reason.DEADLINE, Duration.ofNanos((long) longRttNanos)));
+    }
+
+    private void release(long rttNanos, Outcome outcome, int inFlightAtStart) {
+        List<Waiter> granted = new ArrayList<>();
+        lock.lock();
+        try {
+            inFlight--;
+            if (outcome == Outcome.DROPPED) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (outcome == Outcome.SUCCESS) {
+                shortRttNanos = shortRttNanos == 0 ? rttNanos : shortRttNanos + SHORT_RTT_WEIGHT * (rttNanos - shortRttNanos);
+                longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + LONG_RTT_WEIGHT * (rttNanos - longRttNanos);
+                if (shortRttNanos > latencyTolerance * longRttNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                } else if (inFlightAtStart * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                granted.add(queue.pollFirst());
+                inFlight++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter waiter : granted) {
+            Permit permit = new Permit(inFlight());
+            if (!waiter.future().complete(permit)) {
+                permit.release(0, Outcome.IGNORED);
+            }
+        }
+    }
+
+    /** One call's claim on the limit; release it exactly once with how the call went. */
+    public final class Permit {
+
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void release(long rttNanos, Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveLimiter.this.release(rttNanos, outcome, inFlightAtStart);
+            }
+        }
+    }
+}
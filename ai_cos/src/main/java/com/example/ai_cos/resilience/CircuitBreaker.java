@@ -0,0 +1,150 @@
+package com.example.ai_cos.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling a service that keeps failing. The outcomes of the last {@code window} calls are
+ * kept; once at least {@code minimumCalls} were seen and the share of failures reaches
+ * {@code failureRateThreshold} the breaker opens and rejects calls for {@code openDuration}.
+ * After that a single probe call is let through: its success closes the breaker again, its
+ * failure reopens it.
+ * <p>
+ * Every {@link #acquire()} that returns must be followed by exactly one of {@link #onSuccess()},
+ * {@link #onFailure()} or {@link #onIgnored()}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(int window, int minimumCalls, double failureRateThreshold, Duration openDuration) {
+        this(window, minimumCalls, failureRateThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int window, int minimumCalls, double failureRateThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.outcomes = new boolean[window];
+        this.minimumCalls = Math.min(minimumCalls, window);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /** Lets a call through or throws {@link UpstreamUnavailableException} while the breaker is open. */
+    public void acquire() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                long remaining = openedAt + openNanos - nanoClock.getAsLong();
+                if (remaining > 0) {
+                    throw new UpstreamUnavailableException(UpstreamUnavailableException.Reason.CIRCUIT_OPEN,
+                            Duration.ofNanos(remaining));
+                }
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probing) {
+                    throw new UpstreamUnavailableException(UpstreamUnavailableException.Reason.CIRCUIT_OPEN,
+                            Duration.ofNanos(openNanos));
+                }
+                probing = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                close();
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                open();
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+                    open();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The call ended in a way that says nothing about the health of the service. */
+    public void onIgnored() {
+        lock.lock();
+        try {
+            probing = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        probing = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probing = false;
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ai_cos.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Capped exponential backoff with full jitter, so clients that failed together do not retry
+ * together. A {@code Retry-After} sent by the server is honoured as a lower bound.
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+    }
+
+    /** Delay before retrying after {@code attempt} (1-based) failed; {@code retryAfter} may be null. */
+    public Duration delay(int attempt, Duration retryAfter) {
+        long capMillis = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt - 1, 20));
+        long jittered = ThreadLocalRandom.current().nextLong(capMillis + 1);
+        if (retryAfter == null) {
+            return Duration.ofMillis(jittered);
+        }
+        long spread = ThreadLocalRandom.current().nextLong(baseDelay.toMillis() + 1);
+        return Duration.ofMillis(Math.max(jittered, retryAfter.toMillis() + spread));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ai_cos.resilience;
+
+import java.time.Duration;
+
+/**
+ * A call to an upstream service was not made or gave up early, either because this process
+ * is protecting itself (full queue, deadline out of reach, open circuit) or because the
+ * upstream kept refusing it. Carries the HTTP status to answer with and a retry hint.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public enum Reason {
+        QUEUE_FULL,
+        DEADLINE,
+        CIRCUIT_OPEN,
+        RATE_LIMITED,
+        UPSTREAM_FAILED
+    }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public UpstreamUnavailableException(Reason reason, Duration retryAfter) {
+        this(reason, retryAfter, null);
+    }
+
+    public UpstreamUnavailableException(Reason reason, Duration retryAfter, Throwable cause) {
+        super(message(reason, retryAfter), cause);
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /** 429 when the upstream rate limits us, 503 for everything else. */
+    public int httpStatus() {
+        return reason == Reason.RATE_LIMITED ? 429 : 503;
+    }
+
+    /** Whole seconds for a {@code Retry-After} header, at least one. */
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+
+    private static String message(Reason reason, Duration retryAfter) {
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        return switch (reason) {
+            case QUEUE_FULL -> "Serwis AI jest przeciążony, spróbuj ponownie za " + seconds + " s.";
+            case DEADLINE -> "Serwis AI nie zdąży odpowiedzieć w limicie czasu, spróbuj ponownie za " + seconds + " s.";
+            case CIRCUIT_OPEN -> "Serwis AI jest chwilowo niedostępny, spróbuj ponownie za " + seconds + " s.";
+            case RATE_LIMITED -> "Przekroczono limit zapytań do Gemini, spróbuj ponownie za " + seconds + " s.";
+            case UPSTREAM_FAILED -> "Gemini nie odpowiada poprawnie, spróbuj ponownie za " + seconds + " s.";
+        };
+    }
+}
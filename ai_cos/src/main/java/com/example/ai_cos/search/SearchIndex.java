@@ -0,0 +1,188 @@
+package com.example.ai_cos.search;
+
+import com.example.ai_cos.event.BulkDataChangedEvent;
+import com.example.ai_cos.event.ChangeType;
+import com.example.ai_cos.event.DataDomain;
+import com.example.ai_cos.event.EntityChangedEvent;
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.model.TextNormalizer;
+import com.example.ai_cos.repository.OrderRepository;
+import com.example.ai_cos.service.DataExportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Fuzzy search over client names and e-mail local parts, and over the distinct product names of
+ * orders, backed by {@link TrigramIndex}. Built from the database during startup warm-up or on
+ * first use, then kept current from {@link EntityChangedEvent}s; bulk loads mark it stale so the
+ * next search rebuilds it.
+ * Results are ranked; when some documents match every query trigram only those are returned,
+ * otherwise the best fuzzy matches above {@code search.min-score}.
+ */
+@Component
+public class SearchIndex {
+
+    private final DataExportService dataExportService;
+    private final OrderRepository orderRepository;
+    private final int maxResults;
+    private final double minScore;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantLock productLock = new ReentrantLock();
+    private volatile TrigramIndex clients = new TrigramIndex();
+    private volatile TrigramIndex clientsBuilding;
+    private volatile boolean clientsStale = true;
+    private final TrigramIndex products = new TrigramIndex();
+    private final List<String> productNames = new ArrayList<>();
+    private final Map<String, Integer> productIds = new ConcurrentHashMap<>();
+    private volatile boolean productsStale = true;
+
+    public SearchIndex(DataExportService dataExportService,
+                       OrderRepository orderRepository,
+                       @Value("${search.max-results:50}") int maxResults,
+                       @Value("${search.min-score:0.5}") double minScore) {
+        this.dataExportService = dataExportService;
+        this.orderRepository = orderRepository;
+        this.maxResults = maxResults;
+        this.minScore = minScore;
+    }
+
+    public void bootstrap() {
+        ensureFresh();
+    }
+
+    public List<Long> searchClientIds(String query) {
+        ensureFresh();
+        return bestTier(clients.search(query, maxResults, minScore)).stream()
+                .map(match -> (long) match.docId())
+                .toList();
+    }
+
+    public List<String> searchProductNames(String query) {
+        ensureFresh();
+        List<TrigramIndex.Match> matches = bestTier(products.search(query, maxResults, minScore));
+        productLock.lock();
+        try {
+            return matches.stream().map(match -> productNames.get(match.docId())).toList();
+        } finally {
+            productLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.entity() instanceof Client client) {
+            int docId = client.getId().intValue();
+            if (event.type() == ChangeType.DELETED) {
+                forEachClientIndex(index -> index.remove(docId));
+            } else {
+                String text = clientText(client.getFirstName(), client.getLastName(), client.getEmail());
+                forEachClientIndex(index -> index.put(docId, text));
+            }
+        } else if (event.entity() instanceof Order order && event.type() != ChangeType.DELETED) {
+            registerProduct(order.getProductName());
+        }
+    }
+
+    // before the caches, so a result computed once they move on sees this write
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBulkDataChanged(BulkDataChangedEvent event) {
+        if (event.domains().contains(DataDomain.CLIENTS)) {
+            clientsStale = true;
+        }
+        if (event.domains().contains(DataDomain.ORDERS)) {
+            productsStale = true;
+        }
+    }
+
+    private void ensureFresh() {
+        if (!clientsStale && !productsStale) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            if (clientsStale) {
+                clientsStale = false;
+                rebuildClients();
+            }
+            if (productsStale) {
+                productsStale = false;
+                orderRepository.findDistinctProductNames().forEach(this::registerProduct);
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /** Builds into a fresh index while searches keep using the old one; writes meanwhile go to both. */
+    private void rebuildClients() {
+        TrigramIndex building = new TrigramIndex();
+        clientsBuilding = building;
+        try {
+            dataExportService.forEachClient(row ->
+                    building.put(row.id().intValue(), clientText(row.firstName(), row.lastName(), row.email())));
+            clients = building;
+        } catch (RuntimeException e) {
+            clientsStale = true;
+            throw e;
+        } finally {
+            clientsBuilding = null;
+        }
+    }
+
+    /** Reads the index under construction first, so a write racing the swap still reaches the new index. */
+    private void forEachClientIndex(Consumer<TrigramIndex> action) {
+        TrigramIndex building = clientsBuilding;
+        if (building != null) {
+            action.accept(building);
+        }
+        action.accept(clients);
+    }
+
+    private void registerProduct(String productName) {
+        String normalized = TextNormalizer.normalize(productName);
+        if (normalized == null || productIds.containsKey(normalized)) {
+            return;
+        }
+        productLock.lock();
+        try {
+            if (!productIds.containsKey(normalized)) {
+                int docId = productNames.size();
+                productNames.add(productName);
+                products.put(docId, productName);
+                productIds.put(normalized, docId);
+            }
+        } finally {
+            productLock.unlock();
+        }
+    }
+
+    private static String clientText(String firstName, String lastName, String email) {
+        if (email == null) {
+            return firstName + " " + lastName;
+        }
+        int at = email.indexOf('@');
+        return firstName + " " + lastName + " " + (at < 0 ? email : email.substring(0, at));
+    }
+
+    private static List<TrigramIndex.Match> bestTier(List<TrigramIndex.Match> ranked) {
+        if (ranked.isEmpty() || ranked.get(0).score() < 1.0) {
+            return ranked;
+        }
+        return ranked.stream().filter(match -> match.score() >= 1.0).toList();
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.ai_cos.search;
+
+import com.example.ai_cos.model.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fuzzy text index over documents identified by small non-negative ints. Text is folded with
+ * {@link TextNormalizer}, split into words and each word padded to {@code "  word "} before
+ * taking trigrams, so short words and word starts still produce trigrams. Every trigram maps to
+ * a sorted {@code int[]} posting list of document ids; only the folded text is kept per document,
+ * to find its postings again on update or removal.
+ * <p>
+ * A query counts, per document, how many of its own trigrams the document shares. The score is
+ * that count over the number of query trigrams, so a document containing the query scores 1.0
+ * and a misspelling still scores high. Ties prefer documents with fewer trigrams of their own
+ * (the closer match), then lower ids.
+ */
+public class TrigramIndex {
+
+    public record Match(int docId, double score) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final ConcurrentLinkedQueue<int[]> scratchPool = new ConcurrentLinkedQueue<>();
+    private String[] docTexts = new String[0];
+    private int[] docTrigramCounts = new int[0];
+    private int size;
+
+    public void put(int docId, String text) {
+        String normalized = TextNormalizer.normalize(text);
+        long[] trigrams = trigrams(normalized);
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(docId);
+            String previous = docTexts[docId];
+            if (previous != null) {
+                if (previous.equals(normalized)) {
+                    return;
+                }
+                removePostings(docId, trigrams(previous));
+            } else {
+                size++;
+            }
+            docTexts[docId] = normalized;
+            docTrigramCounts[docId] = trigrams.length;
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(docId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            if (docId < docTexts.length && docTexts[docId] != null) {
+                removePostings(docId, trigrams(docTexts[docId]));
+                docTexts[docId] = null;
+                docTrigramCounts[docId] = 0;
+                size--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            scratchPool.clear();
+            docTexts = new String[0];
+            docTrigramCounts = new int[0];
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Match> search(String query, int limit, double minScore) {
+        long[] queryTrigrams = trigrams(TextNormalizer.normalize(query));
+        if (queryTrigrams.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        int minShared = Math.max(1, (int) Math.ceil(minScore * queryTrigrams.length));
+        Comparator<Match> worstFirst = Comparator.comparingDouble(Match::score)
+                .thenComparingInt(m -> -docTrigramCounts[m.docId()])
+                .thenComparingInt(m -> -m.docId());
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, worstFirst);
+
+        lock.readLock().lock();
+        int[] counts = borrowScratch();
+        IntList touched = new IntList();
+        try {
+            for (long trigram : queryTrigrams) {
+                Postings list = postings.get(trigram);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    int docId = list.docs[i];
+                    if (counts[docId]++ == 0) {
+                        touched.add(docId);
+                    }
+                }
+            }
+            for (int i = 0; i < touched.size; i++) {
+                int docId = touched.values[i];
+                int shared = counts[docId];
+                counts[docId] = 0;
+                if (shared >= minShared) {
+                    best.offer(new Match(docId, (double) shared / queryTrigrams.length));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(worstFirst.reversed());
+            return ranked;
+        } finally {
+            scratchPool.offer(counts);
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Sorted, distinct trigrams of already normalized text. */
+    static long[] trigrams(String normalized) {
+        if (normalized == null || normalized.isEmpty()) {
+            return new long[0];
+        }
+        LongList trigrams = new LongList();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addWordTrigrams("  " + normalized.substring(start, i) + " ", trigrams);
+                start = -1;
+            }
+        }
+        long[] sorted = trigrams.toArray();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    private static void addWordTrigrams(String padded, LongList trigrams) {
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+    }
+
+    private void removePostings(int docId, long[] trigrams) {
+        for (long trigram : trigrams) {
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove(docId) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    private void ensureCapacity(int docId) {
+        if (docId >= docTexts.length) {
+            int capacity = Math.max(docId + 1, docTexts.length * 3 / 2 + 16);
+            docTexts = Arrays.copyOf(docTexts, capacity);
+            docTrigramCounts = Arrays.copyOf(docTrigramCounts, capacity);
+        }
+    }
+
+    /** Called under the read lock, so {@code docTexts.length} cannot grow meanwhile. */
+    private int[] borrowScratch() {
+        int[] counts = scratchPool.poll();
+        while (counts != null && counts.length < docTexts.length) {
+            counts = scratchPool.poll();
+        }
+        return counts != null ? counts : new int[docTexts.length];
+    }
+
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int docId) {
+            if (size > 0 && docs[size - 1] >= docId) {
+                int position = Arrays.binarySearch(docs, 0, size, docId);
+                if (position >= 0) {
+                    return;
+                }
+                insertAt(-position - 1, docId);
+                return;
+            }
+            insertAt(size, docId);
+        }
+
+        boolean remove(int docId) {
+            int position = Arrays.binarySearch(docs, 0, size, docId);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(docs, position + 1, docs, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void insertAt(int position, int docId) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, position, docs, position + 1, size - position);
+            docs[position] = docId;
+            size++;
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[32];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
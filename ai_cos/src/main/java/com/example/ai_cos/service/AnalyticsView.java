@@ -0,0 +1,394 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.dto.ClientStats;
+import com.example.ai_cos.dto.DatabaseSummary;
+import com.example.ai_cos.dto.ProductStats;
+import com.example.ai_cos.dto.StatusCount;
+import com.example.ai_cos.event.BulkDataChangedEvent;
+import com.example.ai_cos.event.ChangeType;
+import com.example.ai_cos.event.EntityChangedEvent;
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.model.OrderStatus;
+import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.repository.OrderRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory aggregates over the orders table, bootstrapped once from {@link OrderRepository}
+ * and kept up to date from {@link EntityChangedEvent}s published after each committed write.
+ * Per-client values live in arrays indexed by client id; inserts are applied incrementally,
+ * updates and deletes mark the view stale so the next read rebuilds it. Rows with ids up to
+ * the watermark taken at rebuild time are already counted and are skipped, except for ids the
+ * snapshot did not contain: IDENTITY ids are taken at insert time, so a transaction holding a
+ * lower id can commit after the snapshot was read. Those gaps are recorded at rebuild time and
+ * an insert that fills one is applied like an insert above the watermark.
+ * <p>
+ * A rebuild reads the watermarks and all aggregates in one read-only serializable
+ * transaction, so they describe the same snapshot. The view is marked fresh before the rebuild
+ * starts, so an update or delete committed while it runs marks it stale again.
+ */
+@Component
+public class AnalyticsView {
+
+    private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate snapshot;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean stale = true;
+    private long clientWatermark;
+    private long orderWatermark;
+    private final TreeMap<Long, Long> clientGaps = new TreeMap<>();
+    private final TreeMap<Long, Long> orderGaps = new TreeMap<>();
+
+    private long clientCount;
+    private long orderCount;
+    private long revenueCents;
+    private long[] clientOrderCounts = new long[0];
+    private long[] clientSpentCents = new long[0];
+    private final long[] statusCounts = new long[OrderStatus.values().length];
+    private final Map<String, long[]> productStats = new HashMap<>();
+
+    private final TreeSet<Integer> clientsByOrderCount = new TreeSet<>(
+            Comparator.<Integer>comparingLong(id -> -clientOrderCounts[id]).thenComparingInt(id -> id));
+    private final TreeSet<Integer> clientsBySpending = new TreeSet<>(
+            Comparator.<Integer>comparingLong(id -> -clientSpentCents[id]).thenComparingInt(id -> id));
+
+    public AnalyticsView(ClientRepository clientRepository, OrderRepository orderRepository,
+                         PlatformTransactionManager transactionManager) {
+        this.clientRepository = clientRepository;
+        this.orderRepository = orderRepository;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    public void bootstrap() {
+        ensureFresh();
+    }
+
+    public void invalidate() {
+        stale = true;
+    }
+
+    // before the caches, so a result computed once they move on sees this write
+    @EventListener
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onBulkDataChanged(BulkDataChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (stale) {
+            return;
+        }
+        if (event.type() != ChangeType.CREATED) {
+            if (event.entity() instanceof Order || event.entity() instanceof Client) {
+                invalidate();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (stale) {
+                return;
+            }
+            if (event.entity() instanceof Order order && isMissing(order.getId(), orderWatermark, orderGaps)) {
+                applyOrder(order);
+            } else if (event.entity() instanceof Client client && isMissing(client.getId(), clientWatermark, clientGaps)) {
+                ensureCapacity(client.getId().intValue());
+                clientCount++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public DatabaseSummary getSummary() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return new DatabaseSummary(clientCount, orderCount, BigDecimal.valueOf(revenueCents, 2));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getOrderCount(Long clientId) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            int id = clientId.intValue();
+            return id >= 0 && id < clientOrderCounts.length ? clientOrderCounts[id] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public BigDecimal getTotalSpent(Long clientId) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            int id = clientId.intValue();
+            return BigDecimal.valueOf(id >= 0 && id < clientSpentCents.length ? clientSpentCents[id] : 0, 2);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> getTopClientIdsByOrderCount(int limit) {
+        return topClientIds(clientsByOrderCount, limit);
+    }
+
+    public List<Long> getTopClientIdsBySpending(int limit) {
+        return topClientIds(clientsBySpending, limit);
+    }
+
+    public List<ProductStats> getProductStats() {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            List<ProductStats> result = new ArrayList<>(productStats.size());
+            productStats.forEach((product, stats) ->
+                    result.add(new ProductStats(product, stats[0], stats[1], BigDecimal.valueOf(stats[2], 2))));
+            result.sort(Comparator.comparing(ProductStats::orderCount).reversed()
+                    .thenComparing(ProductStats::productName));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getStatusCount(OrderStatus status) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            return statusCounts[status.ordinal()];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recounts everything in the database and returns a description of every value that
+     * differs from the view. An empty list means the view is consistent.
+     */
+    public List<String> verifyAgainstDatabase() {
+        ensureFresh();
+        List<String> differences = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            DatabaseSummary summary = orderRepository.getDatabaseSummary();
+            compare(differences, "clientCount", clientCount, summary.clientCount());
+            compare(differences, "orderCount", orderCount, summary.orderCount());
+            compare(differences, "revenue", BigDecimal.valueOf(revenueCents, 2), summary.totalRevenue());
+
+            for (ClientStats stats : orderRepository.getClientStatsByOrderCount()) {
+                int id = stats.clientId().intValue();
+                long count = id < clientOrderCounts.length ? clientOrderCounts[id] : 0;
+                long spent = id < clientSpentCents.length ? clientSpentCents[id] : 0;
+                compare(differences, "client[" + id + "].orderCount", count, stats.orderCount());
+                compare(differences, "client[" + id + "].totalSpent", BigDecimal.valueOf(spent, 2), stats.totalSpent());
+            }
+
+            List<ProductStats> products = orderRepository.getProductStats();
+            compare(differences, "productCount", productStats.size(), products.size());
+            for (ProductStats stats : products) {
+                long[] view = productStats.getOrDefault(stats.productName(), new long[3]);
+                compare(differences, "product[" + stats.productName() + "].orderCount", view[0], stats.orderCount());
+                compare(differences, "product[" + stats.productName() + "].quantity", view[1], stats.totalQuantity());
+                compare(differences, "product[" + stats.productName() + "].value", BigDecimal.valueOf(view[2], 2), stats.totalValue());
+            }
+
+            long[] dbStatusCounts = new long[statusCounts.length];
+            for (StatusCount statusCount : orderRepository.getStatusCounts()) {
+                if (statusCount.status() != null) {
+                    dbStatusCounts[statusCount.status().ordinal()] = statusCount.count();
+                }
+            }
+            for (OrderStatus status : OrderStatus.values()) {
+                compare(differences, "status[" + status + "]", statusCounts[status.ordinal()], dbStatusCounts[status.ordinal()]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return differences;
+    }
+
+    private List<Long> topClientIds(TreeSet<Integer> ranking, int limit) {
+        ensureFresh();
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>(Math.min(limit, ranking.size()));
+            for (Integer id : ranking) {
+                if (ids.size() >= limit) {
+                    break;
+                }
+                ids.add(id.longValue());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureFresh() {
+        if (!stale) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (stale) {
+                stale = false;
+                try {
+                    snapshot.executeWithoutResult(status -> rebuild());
+                } catch (RuntimeException e) {
+                    stale = true;
+                    throw e;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        Long maxOrderId = orderRepository.findMaxId();
+        Long maxClientId = clientRepository.findMaxId();
+        orderWatermark = maxOrderId != null ? maxOrderId : 0;
+        clientWatermark = maxClientId != null ? maxClientId : 0;
+        loadGaps(orderGaps, orderRepository.findIdGaps());
+        loadGaps(clientGaps, clientRepository.findIdGaps());
+
+        clientsByOrderCount.clear();
+        clientsBySpending.clear();
+        clientOrderCounts = new long[(int) clientWatermark + 1];
+        clientSpentCents = new long[(int) clientWatermark + 1];
+        clientCount = 0;
+        orderCount = 0;
+        revenueCents = 0;
+        for (ClientStats stats : orderRepository.getClientStatsByOrderCount()) {
+            int id = stats.clientId().intValue();
+            ensureCapacity(id);
+            clientOrderCounts[id] = stats.orderCount();
+            clientSpentCents[id] = toCents(stats.totalSpent());
+            clientCount++;
+            orderCount += stats.orderCount();
+            revenueCents += clientSpentCents[id];
+            if (stats.orderCount() > 0) {
+                clientsByOrderCount.add(id);
+                clientsBySpending.add(id);
+            }
+        }
+
+        productStats.clear();
+        for (ProductStats stats : orderRepository.getProductStats()) {
+            productStats.put(stats.productName(),
+                    new long[]{stats.orderCount(), stats.totalQuantity(), toCents(stats.totalValue())});
+        }
+
+        Arrays.fill(statusCounts, 0);
+        for (StatusCount statusCount : orderRepository.getStatusCounts()) {
+            if (statusCount.status() != null) {
+                statusCounts[statusCount.status().ordinal()] = statusCount.count();
+            }
+        }
+    }
+
+    private static void loadGaps(TreeMap<Long, Long> gaps, List<Object[]> ranges) {
+        gaps.clear();
+        for (Object[] range : ranges) {
+            gaps.put(((Number) range[0]).longValue(), ((Number) range[1]).longValue());
+        }
+    }
+
+    /**
+     * Whether the snapshot of the last rebuild did not contain {@code id}. A gap id is taken
+     * out of {@code gaps} when found, so the row it stands for is counted once.
+     */
+    private static boolean isMissing(long id, long watermark, TreeMap<Long, Long> gaps) {
+        if (id > watermark) {
+            return true;
+        }
+        Map.Entry<Long, Long> gap = gaps.floorEntry(id);
+        if (gap == null || gap.getValue() < id) {
+            return false;
+        }
+        gaps.remove(gap.getKey());
+        if (gap.getKey() < id) {
+            gaps.put(gap.getKey(), id - 1);
+        }
+        if (id < gap.getValue()) {
+            gaps.put(id + 1, gap.getValue());
+        }
+        return true;
+    }
+
+    private void applyOrder(Order order) {
+        int clientId = order.getClient().getId().intValue();
+        long valueCents = toCents(order.getPrice().multiply(BigDecimal.valueOf(order.getQuantity())));
+        ensureCapacity(clientId);
+
+        clientsByOrderCount.remove(clientId);
+        clientsBySpending.remove(clientId);
+        clientOrderCounts[clientId]++;
+        clientSpentCents[clientId] += valueCents;
+        clientsByOrderCount.add(clientId);
+        clientsBySpending.add(clientId);
+
+        long[] product = productStats.computeIfAbsent(order.getProductName(), name -> new long[3]);
+        product[0]++;
+        product[1] += order.getQuantity();
+        product[2] += valueCents;
+
+        if (order.getStatus() != null) {
+            statusCounts[order.getStatus().ordinal()]++;
+        }
+        orderCount++;
+        revenueCents += valueCents;
+    }
+
+    private void ensureCapacity(int clientId) {
+        if (clientId < clientOrderCounts.length) {
+            return;
+        }
+        int capacity = Math.max(clientId + 1, clientOrderCounts.length * 2);
+        clientOrderCounts = Arrays.copyOf(clientOrderCounts, capacity);
+        clientSpentCents = Arrays.copyOf(clientSpentCents, capacity);
+    }
+
+    private static long toCents(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static void compare(List<String> differences, String name, Object view, Object database) {
+        boolean equal = view instanceof BigDecimal a && database instanceof BigDecimal b
+                ? a.compareTo(b) == 0
+                : Objects.equals(view, database);
+        if (!equal) {
+            differences.add(name + ": view=" + view + ", db=" + database);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.config.ExecutorFactory;
+import com.example.ai_cos.dto.GenerationStatus;
+import com.example.ai_cos.event.BulkDataChangedEvent;
+import com.example.ai_cos.event.DataDomain;
+import com.example.ai_cos.model.OrderStatus;
+import com.example.ai_cos.model.TextNormalizer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates large load-testing datasets with JDBC batch inserts, bypassing the persistence
+ * context. Rows are written in chunks, each in its own transaction, by several workers in
+ * parallel. Orders pick their client by a random id from the current id range, resolved to
+ * the nearest existing id through the primary key, so the clients table is never loaded.
+ * Since no entity events are raised, a {@link BulkDataChangedEvent} follows every chunk.
+ * One job runs at a time. Its coordinator runs on a separate executor from the workers, so
+ * with a fixed platform pool it can never hold a thread its own workers are waiting for.
+ */
+@Service
+public class BulkDataGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkDataGenerator.class);
+
+    private static final String INSERT_CLIENT =
+            "INSERT INTO clients (first_name, last_name, first_name_norm, last_name_norm, email, phone, registration_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (product_name, product_name_norm, quantity, price, order_date, status, client_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, (SELECT MIN(id) FROM clients WHERE id >= ?))";
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService coordinator;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final long maxRows;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong jobSequence = new AtomicLong();
+    private final AtomicReference<Job> running = new AtomicReference<>();
+
+    public BulkDataGenerator(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher,
+                             ExecutorFactory executorFactory,
+                             @Value("${app.generate.parallelism:4}") int parallelism,
+                             @Value("${app.generate.chunk-size:5000}") int chunkSize,
+                             @Value("${app.generate.max-rows:10000000}") long maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.coordinator = executorFactory.create("bulk-generate-job");
+        this.executor = executorFactory.create("bulk-generate");
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxRows = maxRows;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    public GenerationStatus start(long clients, long orders) {
+        if (clients < 0 || orders < 0) {
+            throw new IllegalArgumentException("Liczba klientów i zamówień nie może być ujemna");
+        }
+        if (clients + orders > maxRows) {
+            throw new IllegalArgumentException("Maksymalnie " + maxRows + " wierszy na jedno generowanie");
+        }
+        if (orders > 0 && clients == 0 && currentClientIdRange() == null) {
+            throw new IllegalArgumentException("Brak klientów - wygeneruj najpierw klientów");
+        }
+        removeFinishedJobs();
+
+        Job job = new Job(Long.toString(System.currentTimeMillis(), 36) + "-" + jobSequence.incrementAndGet(),
+                clients, orders);
+        if (!running.compareAndSet(null, job)) {
+            Job current = running.get();
+            throw new GenerationInProgressException(current != null ? current.id : "?");
+        }
+        jobs.put(job.id, job);
+        coordinator.execute(() -> run(job));
+        return job.snapshot();
+    }
+
+    public Optional<GenerationStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+    }
+
+    private void run(Job job) {
+        try {
+            insertInParallel(job.clientsRequested, job.clientsInserted,
+                    (from, count) -> insertClients(job.id, from, count), DataDomain.CLIENTS);
+            if (job.ordersRequested > 0) {
+                long[] idRange = currentClientIdRange();
+                insertInParallel(job.ordersRequested, job.ordersInserted,
+                        (from, count) -> insertOrders(idRange[0], idRange[1], count), DataDomain.ORDERS);
+            }
+            finish(job, GenerationStatus.State.COMPLETED, null);
+            GenerationStatus status = job.snapshot();
+            log.info("Generation {} inserted {} clients and {} orders in {} ms ({} rows/s)", status.id(),
+                    status.clientsInserted(), status.ordersInserted(), status.elapsedMs(), status.rowsPerSecond());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            log.warn("Generation {} failed", job.id, cause);
+            finish(job, GenerationStatus.State.FAILED, cause.getMessage());
+        }
+    }
+
+    /** Frees the slot for the next job before the status turns final, so a client polling for it can start one. */
+    private void finish(Job job, GenerationStatus.State state, String error) {
+        running.compareAndSet(job, null);
+        job.finish(state, error);
+    }
+
+    private void insertInParallel(long total, AtomicLong inserted, ChunkWriter writer, DataDomain domain)
+            throws InterruptedException, ExecutionException {
+        AtomicLong nextChunk = new AtomicLong();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(executor.submit(() -> {
+                long from;
+                while ((from = nextChunk.getAndAdd(chunkSize)) < total && !Thread.currentThread().isInterrupted()) {
+                    int count = (int) Math.min(chunkSize, total - from);
+                    long start = from;
+                    transactionTemplate.executeWithoutResult(tx -> writer.write(start, count));
+                    inserted.addAndGet(count);
+                    eventPublisher.publishEvent(new BulkDataChangedEvent(Set.of(domain)));
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            workers.forEach(worker -> worker.cancel(true));
+        }
+    }
+
+    private void insertClients(String jobId, long from, int count) {
+        LocalDate today = LocalDate.now();
+        jdbcTemplate.batchUpdate(INSERT_CLIENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                String firstName = DataGeneratorService.FIRST_NAMES[random.nextInt(DataGeneratorService.FIRST_NAMES.length)];
+                String lastName = DataGeneratorService.LAST_NAMES[random.nextInt(DataGeneratorService.LAST_NAMES.length)];
+                ps.setString(1, firstName);
+                ps.setString(2, lastName);
+                ps.setString(3, TextNormalizer.normalize(firstName));
+                ps.setString(4, TextNormalizer.normalize(lastName));
+                ps.setString(5, firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + jobId + "." + (from + i) + "@email.pl");
+                ps.setString(6, "+48" + (100000000 + random.nextInt(900000000)));
+                ps.setDate(7, Date.valueOf(today.minusDays(random.nextInt(365))));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    private void insertOrders(long minClientId, long maxClientId, int count) {
+        LocalDateTime now = LocalDateTime.now();
+        OrderStatus[] statuses = OrderStatus.values();
+        jdbcTemplate.batchUpdate(INSERT_ORDER, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                String productName = DataGeneratorService.PRODUCTS[random.nextInt(DataGeneratorService.PRODUCTS.length)];
+                ps.setString(1, productName);
+                ps.setString(2, TextNormalizer.normalize(productName));
+                ps.setInt(3, 1 + random.nextInt(5));
+                ps.setBigDecimal(4, BigDecimal.valueOf(50 + random.nextInt(2000)));
+                ps.setTimestamp(5, Timestamp.valueOf(now.minusSeconds(random.nextLong(Duration.ofDays(365).toSeconds()))));
+                ps.setString(6, statuses[random.nextInt(statuses.length)].name());
+                ps.setLong(7, random.nextLong(minClientId, maxClientId + 1));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    private long[] currentClientIdRange() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id), MAX(id) FROM clients",
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    private void removeFinishedJobs() {
+        long cutoff = System.nanoTime() - FINISHED_JOB_RETENTION.toNanos();
+        jobs.values().removeIf(job -> job.state != GenerationStatus.State.RUNNING && job.finishedAt - cutoff < 0);
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        void write(long from, int count);
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final long clientsRequested;
+        private final long ordersRequested;
+        private final AtomicLong clientsInserted = new AtomicLong();
+        private final AtomicLong ordersInserted = new AtomicLong();
+        private final long startedAt = System.nanoTime();
+        private volatile long finishedAt;
+        private volatile GenerationStatus.State state = GenerationStatus.State.RUNNING;
+        private volatile String error;
+
+        private Job(String id, long clientsRequested, long ordersRequested) {
+            this.id = id;
+            this.clientsRequested = clientsRequested;
+            this.ordersRequested = ordersRequested;
+        }
+
+        private void finish(GenerationStatus.State finalState, String failure) {
+            finishedAt = System.nanoTime();
+            error = failure;
+            state = finalState;
+        }
+
+        private GenerationStatus snapshot() {
+            GenerationStatus.State current = state;
+            long end = current == GenerationStatus.State.RUNNING ? System.nanoTime() : finishedAt;
+            long elapsedMs = Duration.ofNanos(end - startedAt).toMillis();
+            long clients = clientsInserted.get();
+            long orders = ordersInserted.get();
+            long rowsPerSecond = elapsedMs == 0 ? 0 : (clients + orders) * 1000 / elapsedMs;
+            return new GenerationStatus(id, current, clientsRequested, clients, ordersRequested, orders,
+                    elapsedMs, rowsPerSecond, error);
+        }
+    }
+}
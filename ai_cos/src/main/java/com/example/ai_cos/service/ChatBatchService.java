@@ -0,0 +1,124 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.resilience.UpstreamUnavailableException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Answers a list of questions with at most {@code chat.batch.parallelism} of them in progress,
+ * so a long batch is paced by the Gemini limiter instead of by one round trip after another.
+ * Questions that are equal after normalization are asked once. All questions of a batch share
+ * a tool memo, so a tool call repeated by several questions runs once while the data does not
+ * change. Answers are handed over in the order they finish.
+ */
+@Service
+public class ChatBatchService {
+
+    /** One answered question; {@code duplicateOf} is the index of the first equal question, if any. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchAnswer(int index, String response, String error, Long retryAfterSeconds,
+                              Integer duplicateOf, long elapsedMs) {
+    }
+
+    private record Finished(List<Integer> indexes, ChatService.ChatReply reply, Throwable error, long nanos) {
+    }
+
+    private final ChatService chatService;
+    private final int parallelism;
+    private final int maxMessages;
+    private final int toolMemoSize;
+    private final Duration timeout;
+
+    public ChatBatchService(ChatService chatService,
+                            @Value("${chat.batch.parallelism:16}") int parallelism,
+                            @Value("${chat.batch.max-messages:1000}") int maxMessages,
+                            @Value("${chat.batch.tool-memo-size:256}") int toolMemoSize,
+                            @Value("${chat.batch.timeout:30m}") Duration timeout) {
+        this.chatService = chatService;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxMessages = maxMessages;
+        this.toolMemoSize = toolMemoSize;
+        this.timeout = timeout;
+    }
+
+    /** How long the response of one batch may take. */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public void validate(List<String> messages) {
+        if (messages == null || messages.isEmpty()) {
+            throw new IllegalArgumentException("Podaj listę pytań w polu \"messages\".");
+        }
+        if (messages.size() > maxMessages) {
+            throw new IllegalArgumentException("Za dużo pytań w jednym zapytaniu (maks. " + maxMessages + ").");
+        }
+        for (String message : messages) {
+            if (message == null || message.isBlank()) {
+                throw new IllegalArgumentException("Pytania nie mogą być puste.");
+            }
+        }
+    }
+
+    /**
+     * Answers {@code messages}, passing one {@link BatchAnswer} per message to {@code onAnswer} on
+     * the calling thread as soon as it is known. Returns early, leaving the remaining questions
+     * unasked, when the thread is interrupted or {@code onAnswer} throws.
+     */
+    public void run(List<String> messages, Consumer<BatchAnswer> onAnswer) {
+        validate(messages);
+        ChatSession toolMemo = new ChatSession("batch", toolMemoSize);
+        Map<String, List<Integer>> byQuestion = new LinkedHashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            byQuestion.computeIfAbsent(ChatResponseCache.normalize(messages.get(i)), key -> new ArrayList<>()).add(i);
+        }
+        List<List<Integer>> questions = new ArrayList<>(byQuestion.values());
+        BlockingQueue<Finished> finished = new LinkedBlockingQueue<>();
+
+        int next = 0;
+        int running = 0;
+        try {
+            while (next < questions.size() || running > 0) {
+                while (running < parallelism && next < questions.size()) {
+                    List<Integer> indexes = questions.get(next++);
+                    long start = System.nanoTime();
+                    chatService.chatWithToolMemo(toolMemo, messages.get(indexes.getFirst()))
+                            .whenComplete((reply, error) ->
+                                    finished.add(new Finished(indexes, reply, error, System.nanoTime() - start)));
+                    running++;
+                }
+                Finished done = finished.take();
+                running--;
+                for (int index : done.indexes()) {
+                    onAnswer.accept(toAnswer(index, done));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static BatchAnswer toAnswer(int index, Finished done) {
+        int first = done.indexes().getFirst();
+        Integer duplicateOf = index == first ? null : first;
+        long elapsedMs = Duration.ofNanos(done.nanos()).toMillis();
+        if (done.error() == null) {
+            return new BatchAnswer(index, done.reply().response(), null, null, duplicateOf, elapsedMs);
+        }
+        Throwable cause = done.error() instanceof CompletionException && done.error().getCause() != null
+                ? done.error().getCause() : done.error();
+        Long retryAfter = cause instanceof UpstreamUnavailableException unavailable ? unavailable.retryAfterSeconds() : null;
+        return new BatchAnswer(index, null, cause.getMessage(), retryAfter, duplicateOf, elapsedMs);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ai_cos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exact-match cache of chat answers keyed on the normalized question. Entries remember the
+ * {@link DataVersion} they were computed at and are dropped on read once any client or order
+ * has been written since.
+ */
+@Component
+public class ChatResponseCache {
+
+    private record Entry(String response, long version) {
+    }
+
+    private final DataVersion dataVersion;
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public ChatResponseCache(DataVersion dataVersion,
+                             @Value("${chat.cache.enabled:true}") boolean enabled,
+                             @Value("${chat.cache.max-size:1000}") long maxSize,
+                             @Value("${chat.cache.ttl:10m}") Duration ttl) {
+        this.dataVersion = dataVersion;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .<String, Entry>evictionListener((key, value, cause) -> evictions.increment())
+                .build();
+    }
+
+    public String get(String message) {
+        if (!enabled) {
+            return null;
+        }
+        String key = normalize(message);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.version() != dataVersion.current()) {
+            cache.asMap().remove(key, entry);
+            invalidations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.response();
+    }
+
+    /**
+     * Stores an answer computed from data at {@code version}; the version must be read before
+     * the answer was computed so that a concurrent write makes the entry stale immediately.
+     */
+    public void put(String message, long version, String response) {
+        if (enabled && version == dataVersion.current()) {
+            cache.put(normalize(message), new Entry(response, version));
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", cache.estimatedSize());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("dataVersion", dataVersion.current());
+        return stats;
+    }
+
+    static String normalize(String message) {
+        if (message == null) {
+            return "";
+        }
+        String normalized = message.strip().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        return normalized.replaceAll("[\\s?!.]+$", "");
+    }
+}
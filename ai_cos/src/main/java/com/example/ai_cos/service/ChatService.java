@@ -1,32 +1,55 @@
 package com.example.ai_cos.service;
 
+import com.example.ai_cos.config.ExecutorFactory;
+import com.example.ai_cos.metrics.ChatMetrics;
+import com.example.ai_cos.metrics.QueryTimingScope;
+import com.example.ai_cos.metrics.RequestBreakdown;
+import com.example.ai_cos.resilience.UpstreamUnavailableException;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Service
 public class ChatService {
 
+    private static final Logger log = LoggerFactory.getLogger(ChatService.class);
+
     private final ToolCallbackProvider toolCallbackProvider;
-    private final RestTemplate restTemplate;
+    private final GeminiGuard gemini;
+    private final ChatResponseCache responseCache;
+    private final ChatSessionStore sessionStore;
+    private final DataVersion dataVersion;
     private final ObjectMapper objectMapper;
-    private final Map<String, ToolCallback> toolCallbacks;
-
-    @Value("${gemini.api.key}")
-    private String apiKey;
-
-    @Value("${gemini.model:gemini-2.0-flash}")
-    private String model;
+    private volatile Map<String, ToolCallback> toolCallbacks = Map.of();
+    private volatile RequestTemplate requestTemplate;
+    private final ExecutorService toolExecutor;
+    private final ChatMetrics chatMetrics;
+    private final SingleFlight<String, Answer> chatFlights;
+    private final SingleFlight<String, String> toolFlights;
 
     @Value("${gemini.temperature:0.7}")
     private double temperature;
@@ -34,62 +57,309 @@ public class ChatService {
     @Value("${gemini.instructions}")
     private String systemInstructions;
 
-    private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/%s:generateContent?key=%s";
+    @Value("${gemini.max-tool-steps:5}")
+    private int maxToolSteps;
+
+    @Value("${gemini.http.total-timeout:120s}")
+    private Duration totalTimeout;
+
+    @Value("${chat.coalescing.enabled:true}")
+    private boolean coalescing;
+
+    private record RequestTemplate(RawValue systemInstruction, RawValue tools, RawValue toolConfigAuto,
+                                   RawValue toolConfigNone, RawValue generationConfig) {
+    }
+
+    public record ChatReply(String response, RequestBreakdown breakdown) {
+    }
 
-    public ChatService(ToolCallbackProvider toolCallbackProvider) {
+    /** A final answer; only text Gemini actually wrote in a turn that could still call tools is {@code cacheable}. */
+    private record Answer(String text, boolean cacheable) {
+    }
+
+    private static final String NO_ANSWER = "Nie udało się uzyskać odpowiedzi.";
+
+    private static final String MISSING_API_KEY = "Brak GEMINI_API_KEY. Ustaw zmienną środowiskową GEMINI_API_KEY na hoście (np. Render).";
+
+    public ChatService(ToolCallbackProvider toolCallbackProvider, GeminiGuard gemini,
+                       ChatResponseCache responseCache, ChatSessionStore sessionStore, DataVersion dataVersion,
+                       ExecutorFactory executorFactory, ChatMetrics chatMetrics) {
         this.toolCallbackProvider = toolCallbackProvider;
-        this.restTemplate = new RestTemplate();
+        this.gemini = gemini;
+        this.responseCache = responseCache;
+        this.sessionStore = sessionStore;
+        this.dataVersion = dataVersion;
+        this.toolExecutor = executorFactory.create("tool");
+        this.chatMetrics = chatMetrics;
+        this.chatFlights = new SingleFlight<>(() -> chatMetrics.recordCoalesced("chat"));
+        this.toolFlights = new SingleFlight<>(() -> chatMetrics.recordCoalesced("tool"));
         this.objectMapper = new ObjectMapper();
-        this.toolCallbacks = new HashMap<>();
-        
-        for (ToolCallback callback : toolCallbackProvider.getToolCallbacks()) {
-            toolCallbacks.put(callback.getToolDefinition().name(), callback);
-        }
     }
 
     public String chat(String userMessage) {
+        return chatAsync(userMessage).join();
+    }
+
+    public CompletableFuture<String> chatAsync(String userMessage) {
+        return chatWithBreakdown(userMessage).thenApply(ChatReply::response);
+    }
+
+    /** Like {@link #chatAsync(String)}, also reporting where the time of the request went. */
+    public CompletableFuture<ChatReply> chatWithBreakdown(String userMessage) {
+        return chatWithBreakdown(null, userMessage);
+    }
+
+    /**
+     * Answers {@code userMessage} as the next turn of the conversation {@code sessionId}; without
+     * a session id every question starts a new conversation.
+     */
+    public CompletableFuture<ChatReply> chatWithBreakdown(String sessionId, String userMessage) {
+        RequestBreakdown breakdown = new RequestBreakdown();
+        if (!gemini.isConfigured()) {
+            return CompletableFuture.completedFuture(new ChatReply(MISSING_API_KEY, breakdown));
+        }
+        ChatSession session = sessionStore.open(sessionId);
+        return ask(session, session, userMessage, breakdown);
+    }
+
+    /**
+     * Answers a standalone question that shares remembered tool results with the other questions
+     * using {@code toolMemo}, without reading or extending its history.
+     */
+    CompletableFuture<ChatReply> chatWithToolMemo(ChatSession toolMemo, String userMessage) {
+        RequestBreakdown breakdown = new RequestBreakdown();
+        if (!gemini.isConfigured()) {
+            return CompletableFuture.completedFuture(new ChatReply(MISSING_API_KEY, breakdown));
+        }
+        return ask(null, toolMemo, userMessage, breakdown);
+    }
+
+    private CompletableFuture<ChatReply> ask(ChatSession session, ChatSession toolMemo, String userMessage,
+                                             RequestBreakdown breakdown) {
+        ArrayNode contents = newConversation(session, userMessage);
+        int turnStart = contents.size() - 1;
+        boolean standalone = turnStart == 0;
+        String cached = standalone ? responseCache.get(userMessage) : null;
+        if (cached != null) {
+            remember(session, contents, turnStart, cached);
+            chatMetrics.recordChat("blocking", true, false, breakdown);
+            return CompletableFuture.completedFuture(new ChatReply(cached, breakdown));
+        }
+
+        long version = dataVersion.current();
+        long deadline = System.nanoTime() + totalTimeout.toNanos();
+        QueryTimingScope requestScope = QueryTimingScope.current();
+        CompletableFuture<Answer> answer = standalone && coalescing
+                ? chatFlights.runAsync(version + " " + ChatResponseCache.normalize(userMessage),
+                        () -> chatStep(contents, 0, breakdown, toolMemo, deadline, requestScope))
+                : chatStep(contents, 0, breakdown, toolMemo, deadline, requestScope);
+        return answer
+                .orTimeout(totalTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(response -> {
+                    if (standalone && response.cacheable()) {
+                        responseCache.put(userMessage, version, response.text());
+                    }
+                    remember(session, contents, turnStart, response.text());
+                    finish("blocking", false, breakdown);
+                    return new ChatReply(response.text(), breakdown);
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    finish("blocking", true, breakdown);
+                    if (cause instanceof UpstreamUnavailableException unavailable) {
+                        log.info("Chat request rejected: {}", unavailable.getMessage());
+                        throw unavailable;
+                    }
+                    log.warn("Chat request failed", cause);
+                    if (cause instanceof TimeoutException) {
+                        return new ChatReply("Błąd: przekroczono limit czasu odpowiedzi (" + totalTimeout.toSeconds() + " s).", breakdown);
+                    }
+                    return new ChatReply("Błąd: " + cause.getMessage(), breakdown);
+                });
+    }
+
+    public void chatStream(String userMessage, Consumer<String> onText) throws Exception {
+        chatStream(null, userMessage, onText);
+    }
+
+    public void chatStream(String sessionId, String userMessage, Consumer<String> onText) throws Exception {
+        if (!gemini.isConfigured()) {
+            onText.accept(MISSING_API_KEY);
+            return;
+        }
+
+        RequestBreakdown breakdown = new RequestBreakdown();
+        ChatSession session = sessionStore.open(sessionId);
+        ArrayNode contents = newConversation(session, userMessage);
+        int turnStart = contents.size() - 1;
+        boolean standalone = turnStart == 0;
+        String cached = standalone ? responseCache.get(userMessage) : null;
+        if (cached != null) {
+            remember(session, contents, turnStart, cached);
+            chatMetrics.recordChat("stream", true, false, breakdown);
+            onText.accept(cached);
+            return;
+        }
+
+        long version = dataVersion.current();
+        long deadline = System.nanoTime() + totalTimeout.toNanos();
+        QueryTimingScope requestScope = QueryTimingScope.current();
+        StringBuilder answer = new StringBuilder();
+        Consumer<String> recordingOnText = text -> {
+            answer.append(text);
+            onText.accept(text);
+        };
+
         try {
-            if (apiKey == null || apiKey.isBlank()) {
-                return "Brak GEMINI_API_KEY. Ustaw zmienną środowiskową GEMINI_API_KEY na hoście (np. Render).";
-            }
+            for (int step = 0; ; step++) {
+                boolean lastStep = step >= maxToolSteps;
+                ObjectNode modelContent = streamGeminiApi(buildRequestWithTools(contents, lastStep ? "NONE" : "AUTO"),
+                        recordingOnText, phase(step), breakdown, deadline);
+                List<JsonNode> functionCalls = new ArrayList<>();
+                for (JsonNode part : modelContent.get("parts")) {
+                    if (part.has("functionCall")) {
+                        functionCalls.add(part.get("functionCall"));
+                    }
+                }
 
-            ObjectNode requestBody = buildRequestWithTools(userMessage);
-            String response = callGeminiApi(requestBody);
-            
-            JsonNode responseJson = objectMapper.readTree(response);
-            JsonNode functionCall = extractFunctionCall(responseJson);
-            
-            if (functionCall != null) {
-                String functionName = functionCall.get("name").asText();
-                JsonNode args = functionCall.get("args");
-                String toolResult = executeToolCallback(functionName, args);
-                return callWithFunctionResult(userMessage, functionName, args, toolResult);
+                if (functionCalls.isEmpty() || lastStep) {
+                    if (!answer.isEmpty()) {
+                        if (standalone && !lastStep) {
+                            responseCache.put(userMessage, version, answer.toString());
+                        }
+                        remember(session, contents, turnStart, answer.toString());
+                    }
+                    finish("stream", false, breakdown);
+                    return;
+                }
+
+                contents.add(modelContent);
+                contents.add(executeFunctionCalls(functionCalls, breakdown, session, requestScope).join());
             }
-            
-            return extractTextResponse(responseJson);
-            
         } catch (Exception e) {
-            e.printStackTrace();
-            return "Błąd: " + e.getMessage();
+            finish("stream", true, breakdown);
+            throw e;
         }
     }
 
-    private ObjectNode buildRequestWithTools(String userMessage) {
-        ObjectNode request = objectMapper.createObjectNode();
-        
-        ArrayNode contents = request.putArray("contents");
+    /** Forgets the history and remembered tool results of a session. */
+    public void endSession(String sessionId) {
+        sessionStore.close(sessionId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        toolExecutor.close();
+    }
+
+    private CompletableFuture<Answer> chatStep(ArrayNode contents, int step, RequestBreakdown breakdown,
+                                               ChatSession session, long deadline, QueryTimingScope requestScope) {
+        boolean lastStep = step >= maxToolSteps;
+        String phase = phase(step);
+        long start = System.nanoTime();
+        return gemini.generateAsync(buildRequestWithTools(contents, lastStep ? "NONE" : "AUTO"), deadline)
+                .whenComplete((responseJson, error) -> {
+                    long nanos = System.nanoTime() - start;
+                    breakdown.addLlmCall(nanos);
+                    chatMetrics.recordGeminiCall(phase, "blocking", nanos, error);
+                    if (responseJson != null) {
+                        chatMetrics.recordUsage(responseJson.get("usageMetadata"));
+                    }
+                })
+                .thenCompose(responseJson -> {
+                    List<JsonNode> functionCalls = extractFunctionCalls(responseJson);
+                    if (functionCalls.isEmpty() || lastStep) {
+                        Optional<String> text = extractText(responseJson);
+                        return CompletableFuture.completedFuture(
+                                new Answer(text.orElse(NO_ANSWER), text.isPresent() && !lastStep));
+                    }
+
+                    contents.add(responseJson.get("candidates").get(0).get("content"));
+                    return executeFunctionCalls(functionCalls, breakdown, session, requestScope)
+                            .thenCompose(functionResponses -> {
+                                contents.add(functionResponses);
+                                return chatStep(contents, step + 1, breakdown, session, deadline, requestScope);
+                            });
+                });
+    }
+
+    private static String phase(int step) {
+        return step == 0 ? ChatMetrics.PHASE_INITIAL : ChatMetrics.PHASE_FOLLOW_UP;
+    }
+
+    private void finish(String mode, boolean failed, RequestBreakdown breakdown) {
+        chatMetrics.recordChat(mode, false, failed, breakdown);
+        log.info("Chat ({}): {}", mode, breakdown.summary());
+    }
+
+    /** The history of the session, if any, followed by the new question. */
+    private ArrayNode newConversation(ChatSession session, String userMessage) {
+        ArrayNode contents = objectMapper.createArrayNode();
+        if (session != null) {
+            contents.addAll(session.history());
+        }
         ObjectNode userContent = contents.addObject();
         userContent.put("role", "user");
-        ArrayNode parts = userContent.putArray("parts");
-        parts.addObject().put("text", userMessage);
+        userContent.putArray("parts").addObject().put("text", userMessage);
+        return contents;
+    }
+
+    /** Stores the contents of this turn, from the question on, as the next turn of the session. */
+    private void remember(ChatSession session, ArrayNode contents, int turnStart, String answer) {
+        if (session == null) {
+            return;
+        }
+        List<JsonNode> turn = new ArrayList<>(contents.size() - turnStart);
+        for (int i = turnStart; i < contents.size(); i++) {
+            turn.add(contents.get(i));
+        }
+        sessionStore.append(session, turn, answer);
+    }
+
+    /**
+     * Serializes the parts of a Gemini request that do not depend on the conversation. Call again
+     * when the tools exposed by the {@link ToolCallbackProvider} change.
+     */
+    @PostConstruct
+    public void refreshToolDeclarations() throws JsonProcessingException {
+        Map<String, ToolCallback> callbacks = new HashMap<>();
+        for (ToolCallback callback : toolCallbackProvider.getToolCallbacks()) {
+            callbacks.put(callback.getToolDefinition().name(), callback);
+        }
+        toolCallbacks = Map.copyOf(callbacks);
+
+        ObjectNode systemInstruction = objectMapper.createObjectNode();
+        systemInstruction.putArray("parts").addObject().put("text", systemInstructions);
+
+        ArrayNode tools = objectMapper.createArrayNode();
+        tools.addObject().set("function_declarations", buildToolDeclarations());
+
+        ObjectNode generationConfig = objectMapper.createObjectNode();
+        generationConfig.put("temperature", temperature);
+
+        requestTemplate = new RequestTemplate(
+                new RawValue(objectMapper.writeValueAsString(systemInstruction)),
+                new RawValue(objectMapper.writeValueAsString(tools)),
+                new RawValue(objectMapper.writeValueAsString(toolConfig("AUTO"))),
+                new RawValue(objectMapper.writeValueAsString(toolConfig("NONE"))),
+                new RawValue(objectMapper.writeValueAsString(generationConfig)));
+    }
+
+    ObjectNode buildRequestWithTools(ArrayNode contents, String functionCallingMode) {
+        RequestTemplate template = requestTemplate;
+        ObjectNode request = objectMapper.createObjectNode();
         
-        ObjectNode systemInstruction = request.putObject("system_instruction");
-        ArrayNode sysParts = systemInstruction.putArray("parts");
-        sysParts.addObject().put("text", systemInstructions);
+        request.set("contents", contents);
+        request.putRawValue("system_instruction", template.systemInstruction());
+        request.putRawValue("tools", template.tools());
+        request.putRawValue("tool_config", "NONE".equals(functionCallingMode) ? template.toolConfigNone() : template.toolConfigAuto());
+        request.putRawValue("generationConfig", template.generationConfig());
         
-        ArrayNode tools = request.putArray("tools");
-        ObjectNode toolObj = tools.addObject();
-        ArrayNode functionDeclarations = toolObj.putArray("function_declarations");
+        return request;
+    }
+
+    ArrayNode buildToolDeclarations() {
+        ArrayNode functionDeclarations = objectMapper.createArrayNode();
         
         for (ToolCallback callback : toolCallbackProvider.getToolCallbacks()) {
             var toolDef = callback.getToolDefinition();
@@ -109,14 +379,14 @@ public class ChatService {
             }
         }
         
-        ObjectNode toolConfig = request.putObject("tool_config");
+        return functionDeclarations;
+    }
+
+    private ObjectNode toolConfig(String functionCallingMode) {
+        ObjectNode toolConfig = objectMapper.createObjectNode();
         ObjectNode functionCallingConfig = toolConfig.putObject("function_calling_config");
-        functionCallingConfig.put("mode", "AUTO");
-        
-        ObjectNode generationConfig = request.putObject("generationConfig");
-        generationConfig.put("temperature", temperature);
-        
-        return request;
+        functionCallingConfig.put("mode", functionCallingMode);
+        return toolConfig;
     }
     
     private ObjectNode cleanSchemaForGemini(ObjectNode schema) {
@@ -140,19 +410,42 @@ public class ChatService {
         return cleaned;
     }
 
-    private String callGeminiApi(ObjectNode requestBody) throws Exception {
-        String url = String.format(GEMINI_API_URL, model, apiKey);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        
-        HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
-        
-        return response.getBody();
+    private ObjectNode streamGeminiApi(ObjectNode requestBody, Consumer<String> onText,
+                                       String phase, RequestBreakdown breakdown, long deadline) throws Exception {
+        ObjectNode modelContent = objectMapper.createObjectNode();
+        modelContent.put("role", "model");
+        ArrayNode modelParts = modelContent.putArray("parts");
+        JsonNode[] usageMetadata = new JsonNode[1];
+
+        long start = System.nanoTime();
+        try {
+            gemini.stream(requestBody, deadline, chunk -> {
+                for (JsonNode part : chunk.path("candidates").path(0).path("content").path("parts")) {
+                    if (part.has("text")) {
+                        onText.accept(part.get("text").asText());
+                    }
+                    modelParts.add(part);
+                }
+                if (chunk.has("usageMetadata")) {
+                    usageMetadata[0] = chunk.get("usageMetadata");
+                }
+            });
+        } catch (Exception e) {
+            long nanos = System.nanoTime() - start;
+            breakdown.addLlmCall(nanos);
+            chatMetrics.recordGeminiCall(phase, "stream", nanos, e);
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        breakdown.addLlmCall(nanos);
+        chatMetrics.recordGeminiCall(phase, "stream", nanos, null);
+        chatMetrics.recordUsage(usageMetadata[0]);
+
+        return modelContent;
     }
 
-    private JsonNode extractFunctionCall(JsonNode response) {
+    List<JsonNode> extractFunctionCalls(JsonNode response) {
+        List<JsonNode> functionCalls = new ArrayList<>();
         try {
             JsonNode candidates = response.get("candidates");
             if (candidates != null && candidates.isArray() && candidates.size() > 0) {
@@ -162,7 +455,7 @@ public class ChatService {
                     if (parts != null && parts.isArray()) {
                         for (JsonNode part : parts) {
                             if (part.has("functionCall")) {
-                                return part.get("functionCall");
+                                functionCalls.add(part.get("functionCall"));
                             }
                         }
                     }
@@ -171,20 +464,30 @@ public class ChatService {
         } catch (Exception e) {
             e.printStackTrace();
         }
-        return null;
+        return functionCalls;
     }
 
-    private String extractTextResponse(JsonNode response) {
+    String extractTextResponse(JsonNode response) {
+        return extractText(response).orElse(NO_ANSWER);
+    }
+
+    /** The text parts of the first candidate, or empty when Gemini returned no text at all. */
+    Optional<String> extractText(JsonNode response) {
         try {
             JsonNode candidates = response.get("candidates");
             if (candidates != null && candidates.isArray() && candidates.size() > 0) {
                 JsonNode content = candidates.get(0).get("content");
                 if (content != null) {
                     JsonNode parts = content.get("parts");
-                    if (parts != null && parts.isArray() && parts.size() > 0) {
-                        JsonNode text = parts.get(0).get("text");
-                        if (text != null) {
-                            return text.asText();
+                    if (parts != null && parts.isArray()) {
+                        StringBuilder text = new StringBuilder();
+                        for (JsonNode part : parts) {
+                            if (part.has("text")) {
+                                text.append(part.get("text").asText());
+                            }
+                        }
+                        if (!text.isEmpty()) {
+                            return Optional.of(text.toString());
                         }
                     }
                 }
@@ -192,57 +495,70 @@ public class ChatService {
         } catch (Exception e) {
             e.printStackTrace();
         }
-        return "Nie udało się uzyskać odpowiedzi.";
+        return Optional.empty();
     }
 
-    private String executeToolCallback(String functionName, JsonNode args) {
-        try {
-            ToolCallback callback = toolCallbacks.get(functionName);
-            if (callback != null) {
-                String argsJson = args != null ? objectMapper.writeValueAsString(args) : "{}";
-                return callback.call(argsJson);
+    /**
+     * Runs one tool call on a tool thread, under the query scope of the request that asked for it,
+     * so N+1 repeats are summed over all tool calls of the request.
+     */
+    private String executeToolCallback(String functionName, JsonNode args, RequestBreakdown breakdown,
+                                       ChatSession session, QueryTimingScope requestScope) {
+        long start = System.nanoTime();
+        try (QueryTimingScope queries = QueryTimingScope.open(requestScope, "tool " + functionName)) {
+            try {
+                ToolCallback callback = toolCallbacks.get(functionName);
+                if (callback != null) {
+                    String argsJson = args != null ? objectMapper.writeValueAsString(args) : "{}";
+                    long version = dataVersion.current();
+                    String remembered = session != null ? session.recall(functionName, argsJson, version) : null;
+                    if (remembered != null) {
+                        sessionStore.recordToolReuse();
+                        return remembered;
+                    }
+                    String result = callTool(callback, functionName, argsJson, version);
+                    if (session != null) {
+                        session.remember(functionName, argsJson, version, result);
+                    }
+                    return result;
+                }
+                return "Nieznane narzędzie: " + functionName;
+            } catch (Exception e) {
+                e.printStackTrace();
+                return "Błąd wykonania narzędzia: " + e.getMessage();
+            } finally {
+                breakdown.addToolCall(System.nanoTime() - start, queries.nanos(), queries.statements());
             }
-            return "Nieznane narzędzie: " + functionName;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Błąd wykonania narzędzia: " + e.getMessage();
         }
     }
 
-    private String callWithFunctionResult(String originalMessage, String functionName, JsonNode args, String result) throws Exception {
-        ObjectNode request = objectMapper.createObjectNode();
-        
-        ArrayNode contents = request.putArray("contents");
-        
-        ObjectNode userContent = contents.addObject();
-        userContent.put("role", "user");
-        userContent.putArray("parts").addObject().put("text", originalMessage);
-        
-        ObjectNode modelContent = contents.addObject();
-        modelContent.put("role", "model");
-        ObjectNode functionCallPart = modelContent.putArray("parts").addObject();
-        ObjectNode functionCall = functionCallPart.putObject("functionCall");
-        functionCall.put("name", functionName);
-        if (args != null) {
-            functionCall.set("args", args);
-        } else {
-            functionCall.putObject("args");
+    /** Runs the tool, sharing one execution among identical calls that overlap in time. */
+    private String callTool(ToolCallback callback, String functionName, String argsJson, long version) {
+        if (!coalescing) {
+            return callback.call(argsJson);
         }
-        
-        ObjectNode functionResponseContent = contents.addObject();
-        functionResponseContent.put("role", "user");
-        ObjectNode functionResponsePart = functionResponseContent.putArray("parts").addObject();
-        ObjectNode functionResponse = functionResponsePart.putObject("functionResponse");
-        functionResponse.put("name", functionName);
-        ObjectNode responseObj = functionResponse.putObject("response");
-        responseObj.put("result", result);
-        
-        ObjectNode systemInstruction = request.putObject("system_instruction");
-        ArrayNode sysParts = systemInstruction.putArray("parts");
-        sysParts.addObject().put("text", systemInstructions);
-        
-        String response = callGeminiApi(request);
-        JsonNode responseJson = objectMapper.readTree(response);
-        return extractTextResponse(responseJson);
+        return toolFlights.run(version + " " + functionName + " " + argsJson, () -> callback.call(argsJson));
+    }
+
+    private CompletableFuture<ObjectNode> executeFunctionCalls(List<JsonNode> functionCalls, RequestBreakdown breakdown,
+                                                               ChatSession session, QueryTimingScope requestScope) {
+        List<CompletableFuture<String>> results = functionCalls.stream()
+                .map(call -> CompletableFuture.supplyAsync(
+                        () -> executeToolCallback(call.path("name").asText(), call.get("args"), breakdown, session, requestScope),
+                        toolExecutor))
+                .toList();
+
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    ObjectNode functionResponseContent = objectMapper.createObjectNode();
+                    functionResponseContent.put("role", "user");
+                    ArrayNode parts = functionResponseContent.putArray("parts");
+                    for (int i = 0; i < functionCalls.size(); i++) {
+                        ObjectNode functionResponse = parts.addObject().putObject("functionResponse");
+                        functionResponse.put("name", functionCalls.get(i).path("name").asText());
+                        functionResponse.putObject("response").put("result", results.get(i).join());
+                    }
+                    return functionResponseContent;
+                });
     }
 }
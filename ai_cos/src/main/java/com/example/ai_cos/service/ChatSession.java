@@ -0,0 +1,99 @@
+package com.example.ai_cos.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Conversation history of one chat session plus the tool results it has already seen. Turns are
+ * immutable once appended; {@link ChatSessionStore} compacts by replacing whole turns, so a
+ * request that took a snapshot of the history keeps serializing consistent nodes.
+ */
+public final class ChatSession {
+
+    /** One question with its tool calls, tool results and the final answer, with the estimated token size. */
+    record Turn(List<JsonNode> contents, int tokens, boolean compacted) {
+    }
+
+    private record MemoEntry(String result, long version) {
+    }
+
+    private final String id;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Turn> turns = new ArrayList<>();
+    private final Map<String, MemoEntry> toolMemo;
+
+    ChatSession(String id, int toolMemoSize) {
+        this.id = id;
+        this.toolMemo = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MemoEntry> eldest) {
+                return size() > toolMemoSize;
+            }
+        };
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return turns.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The contents of all turns, oldest first, ready to prepend to a new question. */
+    List<JsonNode> history() {
+        lock.lock();
+        try {
+            List<JsonNode> contents = new ArrayList<>();
+            turns.forEach(turn -> contents.addAll(turn.contents()));
+            return contents;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Result of an earlier identical tool call, if no client or order was written since. */
+    String recall(String toolName, String arguments, long version) {
+        lock.lock();
+        try {
+            MemoEntry entry = toolMemo.get(memoKey(toolName, arguments));
+            return entry != null && entry.version() == version ? entry.result() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remember(String toolName, String arguments, long version, String result) {
+        lock.lock();
+        try {
+            toolMemo.put(memoKey(toolName, arguments), new MemoEntry(result, version));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Runs {@code action} on the live turn list with the session locked. */
+    <T> T withTurns(Function<List<Turn>, T> action) {
+        lock.lock();
+        try {
+            return action.apply(turns);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String memoKey(String toolName, String arguments) {
+        return toolName + ' ' + arguments;
+    }
+}
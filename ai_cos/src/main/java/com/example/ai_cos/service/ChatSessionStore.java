@@ -0,0 +1,187 @@
+package com.example.ai_cos.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chat sessions keyed on a client-chosen id and dropped after {@code chat.session.idle-timeout}
+ * without a request. When the history of a session grows past {@code chat.session.max-history-tokens}
+ * the older turns are compacted in three stages. First their tool results are cut to a short
+ * head. Then their tool calls are dropped, keeping the question and the answer. Finally the
+ * oldest turns are forgotten.
+ */
+@Component
+public class ChatSessionStore {
+
+    /** Rough size of a token in characters of serialized JSON, enough to keep request bodies bounded. */
+    static final int CHARS_PER_TOKEN = 4;
+    private static final int MAX_ID_LENGTH = 128;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final boolean enabled;
+    private final int maxHistoryTokens;
+    private final int keepRecentTurns;
+    private final int compactedResultChars;
+    private final int toolMemoSize;
+    private final Cache<String, ChatSession> sessions;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder toolReuses = new LongAdder();
+
+    public ChatSessionStore(@Value("${chat.session.enabled:true}") boolean enabled,
+                            @Value("${chat.session.max-sessions:10000}") long maxSessions,
+                            @Value("${chat.session.idle-timeout:30m}") Duration idleTimeout,
+                            @Value("${chat.session.max-history-tokens:8000}") int maxHistoryTokens,
+                            @Value("${chat.session.keep-recent-turns:2}") int keepRecentTurns,
+                            @Value("${chat.session.compacted-result-chars:400}") int compactedResultChars,
+                            @Value("${chat.session.tool-memo-size:32}") int toolMemoSize) {
+        this.enabled = enabled;
+        this.maxHistoryTokens = maxHistoryTokens;
+        this.keepRecentTurns = keepRecentTurns;
+        this.compactedResultChars = compactedResultChars;
+        this.toolMemoSize = toolMemoSize;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(idleTimeout)
+                .<String, ChatSession>evictionListener((id, session, cause) -> evictions.increment())
+                .build();
+    }
+
+    /** The session with this id, created on first use; {@code null} when no id was given or sessions are off. */
+    public ChatSession open(String sessionId) {
+        if (!enabled || sessionId == null || sessionId.isBlank()) {
+            return null;
+        }
+        if (sessionId.length() > MAX_ID_LENGTH) {
+            throw new IllegalArgumentException("Identyfikator sesji jest za długi (maks. " + MAX_ID_LENGTH + " znaków).");
+        }
+        return sessions.get(sessionId, id -> {
+            created.increment();
+            return new ChatSession(id, toolMemoSize);
+        });
+    }
+
+    public void close(String sessionId) {
+        if (sessionId != null) {
+            sessions.invalidate(sessionId);
+        }
+    }
+
+    /** Appends a finished turn, its contents followed by the answer, then compacts the history if needed. */
+    void append(ChatSession session, List<JsonNode> turnContents, String answer) {
+        List<JsonNode> contents = new ArrayList<>(turnContents);
+        ObjectNode modelContent = objectMapper.createObjectNode();
+        modelContent.put("role", "model");
+        modelContent.putArray("parts").addObject().put("text", answer);
+        contents.add(modelContent);
+        ChatSession.Turn turn = new ChatSession.Turn(List.copyOf(contents), estimateTokens(contents), false);
+        session.withTurns(turns -> {
+            turns.add(turn);
+            return compact(turns);
+        });
+    }
+
+    void recordToolReuse() {
+        toolReuses.increment();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sessions", sessions.estimatedSize());
+        stats.put("created", created.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("compactions", compactions.sum());
+        stats.put("toolReuses", toolReuses.sum());
+        return stats;
+    }
+
+    /** Brings the estimated size of {@code turns} within the budget; returns the size left. */
+    int compact(List<ChatSession.Turn> turns) {
+        int total = turns.stream().mapToInt(ChatSession.Turn::tokens).sum();
+        if (total <= maxHistoryTokens) {
+            return total;
+        }
+        compactions.increment();
+        int older = Math.max(0, turns.size() - keepRecentTurns);
+        for (int i = 0; i < older && total > maxHistoryTokens; i++) {
+            ChatSession.Turn turn = turns.get(i);
+            if (!turn.compacted()) {
+                ChatSession.Turn shortened = shortenToolResults(turn);
+                total += shortened.tokens() - turn.tokens();
+                turns.set(i, shortened);
+            }
+        }
+        for (int i = 0; i < older && total > maxHistoryTokens; i++) {
+            ChatSession.Turn turn = turns.get(i);
+            if (turn.contents().size() > 2) {
+                List<JsonNode> questionAndAnswer = List.of(turn.contents().getFirst(), turn.contents().getLast());
+                total += estimateTokens(questionAndAnswer) - turn.tokens();
+                turns.set(i, new ChatSession.Turn(questionAndAnswer, estimateTokens(questionAndAnswer), true));
+            }
+        }
+        while (total > maxHistoryTokens && turns.size() > 1) {
+            total -= turns.removeFirst().tokens();
+        }
+        return total;
+    }
+
+    private ChatSession.Turn shortenToolResults(ChatSession.Turn turn) {
+        List<JsonNode> contents = new ArrayList<>(turn.contents().size());
+        for (JsonNode content : turn.contents()) {
+            contents.add(shortenToolResults(content));
+        }
+        return new ChatSession.Turn(List.copyOf(contents), estimateTokens(contents), true);
+    }
+
+    /** Copies a content whose function responses are too long; nodes in the history are never mutated. */
+    private JsonNode shortenToolResults(JsonNode content) {
+        boolean tooLong = false;
+        for (JsonNode part : content.path("parts")) {
+            tooLong |= part.path("functionResponse").path("response").path("result").asText().length() > compactedResultChars;
+        }
+        if (!tooLong) {
+            return content;
+        }
+        ObjectNode copy = content.deepCopy();
+        for (JsonNode part : copy.path("parts")) {
+            JsonNode response = part.path("functionResponse").path("response");
+            String result = response.path("result").asText();
+            if (response instanceof ObjectNode responseNode && result.length() > compactedResultChars) {
+                responseNode.put("result", shorten(result));
+            }
+        }
+        return copy;
+    }
+
+    private String shorten(String result) {
+        int cut = result.lastIndexOf('\n', compactedResultChars);
+        if (cut < compactedResultChars / 2) {
+            cut = compactedResultChars;
+        }
+        return result.substring(0, cut)
+                + "\n[Wynik skrócony w historii rozmowy (" + result.length() + " znaków). "
+                + "Aby zobaczyć całość, wywołaj narzędzie ponownie z tymi samymi argumentami.]";
+    }
+
+    static int estimateTokens(List<JsonNode> contents) {
+        int chars = 0;
+        for (JsonNode content : contents) {
+            chars += content.toString().length();
+        }
+        return (chars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+}
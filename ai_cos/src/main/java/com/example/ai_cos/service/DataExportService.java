@@ -0,0 +1,76 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.dto.ClientRow;
+import com.example.ai_cos.dto.CursorPage;
+import com.example.ai_cos.dto.OrderRow;
+import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.repository.OrderRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Read paths for the REST listing endpoints. Rows are DTO projections with the client name
+ * joined in, so no entity is loaded and no lazy association is touched per row.
+ */
+@Service
+public class DataExportService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final ClientRepository clientRepository;
+    private final OrderRepository orderRepository;
+
+    public DataExportService(ClientRepository clientRepository, OrderRepository orderRepository) {
+        this.clientRepository = clientRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    public List<OrderRow> getAllOrders() {
+        return orderRepository.findAllRows();
+    }
+
+    public CursorPage<ClientRow> pageClients(long afterId, int limit) {
+        int size = clampLimit(limit);
+        List<ClientRow> rows = clientRepository.findRowsAfter(afterId, PageRequest.ofSize(size + 1));
+        return page(rows, size, ClientRow::id);
+    }
+
+    public CursorPage<OrderRow> pageOrders(long afterId, int limit) {
+        int size = clampLimit(limit);
+        List<OrderRow> rows = orderRepository.findRowsAfter(afterId, PageRequest.ofSize(size + 1));
+        return page(rows, size, OrderRow::id);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachClient(Consumer<ClientRow> consumer) {
+        try (Stream<ClientRow> rows = clientRepository.streamAllRows()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachOrder(Consumer<OrderRow> consumer) {
+        try (Stream<OrderRow> rows = orderRepository.streamAllRows()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    /** Cuts the one row read past the page; it only tells whether another page exists. */
+    private static <T> CursorPage<T> page(List<T> rows, int size, Function<T, Long> id) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, id.apply(items.get(size - 1)));
+    }
+}
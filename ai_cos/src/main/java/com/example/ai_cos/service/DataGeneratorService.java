@@ -19,17 +19,17 @@ public class DataGeneratorService {
     private final OrderRepository orderRepository;
     private final Random random = new Random();
 
-    private static final String[] FIRST_NAMES = {
+    static final String[] FIRST_NAMES = {
             "Jan", "Anna", "Piotr", "Maria", "Krzysztof", "Katarzyna", "Andrzej", "Małgorzata",
             "Tomasz", "Agnieszka", "Marcin", "Barbara", "Paweł", "Ewa", "Michał", "Joanna"
     };
 
-    private static final String[] LAST_NAMES = {
+    static final String[] LAST_NAMES = {
             "Nowak", "Kowalski", "Wiśniewski", "Wójcik", "Kowalczyk", "Kamiński", "Lewandowski",
             "Zieliński", "Szymański", "Woźniak", "Dąbrowski", "Kozłowski", "Jankowski", "Mazur"
     };
 
-    private static final String[] PRODUCTS = {
+    static final String[] PRODUCTS = {
             "Laptop", "Smartfon", "Tablet", "Słuchawki", "Klawiatura", "Mysz", "Monitor",
             "Drukarka", "Kamera", "Głośniki", "Powerbank", "Pendrive", "Dysk SSD", "Router"
     };
@@ -52,13 +52,7 @@ public class DataGeneratorService {
     }
 
     public Order generateRandomOrder() {
-        List<Client> clients = clientRepository.findAll();
-        if (clients.isEmpty()) {
-            generateRandomClient();
-            clients = clientRepository.findAll();
-        }
-
-        Client randomClient = clients.get(random.nextInt(clients.size()));
+        Client randomClient = pickRandomClient();
         String productName = PRODUCTS[random.nextInt(PRODUCTS.length)];
         int quantity = 1 + random.nextInt(5);
         BigDecimal price = BigDecimal.valueOf(50 + random.nextInt(2000));
@@ -71,11 +65,16 @@ public class DataGeneratorService {
         return orderRepository.save(order);
     }
 
-    public List<Client> getAllClients() {
-        return clientRepository.findAll();
+    private Client pickRandomClient() {
+        Long minId = clientRepository.findMinId();
+        if (minId == null) {
+            return generateRandomClient();
+        }
+        long id = random.nextLong(minId, clientRepository.findMaxId() + 1);
+        return clientRepository.findFirstByIdGreaterThanEqualOrderByIdAsc(id).orElseThrow();
     }
 
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    public List<Client> getAllClients() {
+        return clientRepository.findAll();
     }
 }
@@ -0,0 +1,46 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.event.BulkDataChangedEvent;
+import com.example.ai_cos.event.EntityChangedEvent;
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic counter bumped after every committed {@link Client} or {@link Order} write.
+ * Anything derived from the data can remember the version it was computed at and treat
+ * itself as stale once the version moves on.
+ */
+@Component
+public class DataVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    public void increment() {
+        version.incrementAndGet();
+    }
+
+    // after the in-memory views have applied the write
+    @EventListener
+    @org.springframework.core.annotation.Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBulkDataChanged(BulkDataChangedEvent event) {
+        increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @org.springframework.core.annotation.Order(Ordered.LOWEST_PRECEDENCE)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.entity() instanceof Client || event.entity() instanceof Order) {
+            increment();
+        }
+    }
+}
@@ -1,99 +1,201 @@
 package com.example.ai_cos.service;
 
+import com.example.ai_cos.dto.ClientStats;
+import com.example.ai_cos.dto.ClientSummary;
+import com.example.ai_cos.dto.DatabaseSummary;
+import com.example.ai_cos.dto.OrderSummary;
+import com.example.ai_cos.dto.ProductStats;
+import com.example.ai_cos.dto.ValueCount;
+import com.example.ai_cos.event.DataDomain;
+import com.example.ai_cos.format.RowFormatter;
+import com.example.ai_cos.format.RowTemplate;
 import com.example.ai_cos.model.Client;
 import com.example.ai_cos.model.Order;
 import com.example.ai_cos.model.OrderStatus;
+import com.example.ai_cos.model.TextNormalizer;
 import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.repository.OffsetPageRequest;
 import com.example.ai_cos.repository.OrderRepository;
+import com.example.ai_cos.search.SearchIndex;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Database tools exposed to Gemini and MCP clients. Listing tools return one page of rows
+ * ({@code limit}/{@code offset}/{@code sortBy}) rendered within {@code tools.output.max-chars};
+ * whenever a page is not the whole result, a statistical summary of all matching rows comes
+ * first, so the model can answer aggregate questions without paging through the table.
+ */
 @Service
 public class DatabaseTools {
 
+    private static final String LIMIT_DESCRIPTION = "Maksymalna liczba wierszy (domyślnie 50, maks. 500)";
+    private static final String OFFSET_DESCRIPTION = "Ile wierszy pominąć (domyślnie 0)";
+    private static final int SUMMARY_TOP_K = 5;
+    private static final Map<String, String> CLIENT_SORT_FIELDS = sortFields(
+            "id", "firstName", "lastName", "email", "registrationDate");
+    private static final Map<String, String> ORDER_SORT_FIELDS = sortFields(
+            "id", "productName", "quantity", "price", "orderDate", "status");
+
+    private static final RowTemplate<Client> CLIENT = RowTemplate.compile(
+            "ID: %d, Imię: %s, Nazwisko: %s, Email: %s, Telefon: %s",
+            Client::getId, Client::getFirstName, Client::getLastName, Client::getEmail, Client::getPhone);
+    private static final RowTemplate<Client> CLIENT_DETAILS = RowTemplate.compile(
+            "ID: %d, Imię: %s, Nazwisko: %s, Email: %s, Telefon: %s, Data rejestracji: %s",
+            Client::getId, Client::getFirstName, Client::getLastName, Client::getEmail, Client::getPhone,
+            Client::getRegistrationDate);
+    private static final RowTemplate<Client> CLIENT_MATCH = RowTemplate.compile(
+            "ID: %d, Imię: %s, Nazwisko: %s, Email: %s",
+            Client::getId, Client::getFirstName, Client::getLastName, Client::getEmail);
+    private static final RowTemplate<Order> ORDER = RowTemplate.compile(
+            "ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s, Klient ID: %d",
+            Order::getId, Order::getProductName, Order::getQuantity, Order::getPrice, Order::getStatus,
+            o -> o.getClient().getId());
+    private static final RowTemplate<Order> ORDER_DETAILS = RowTemplate.compile(
+            "ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s, Klient ID: %d, Data: %s",
+            Order::getId, Order::getProductName, Order::getQuantity, Order::getPrice, Order::getStatus,
+            o -> o.getClient().getId(), Order::getOrderDate);
+    private static final RowTemplate<Order> CLIENT_ORDER = RowTemplate.compile(
+            "  ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s",
+            Order::getId, Order::getProductName, Order::getQuantity, Order::getPrice, Order::getStatus);
+    private static final RowTemplate<Order> STATUS_ORDER = RowTemplate.compile(
+            "  ID: %d, Produkt: %s, Klient ID: %d",
+            Order::getId, Order::getProductName, o -> o.getClient().getId());
+    private static final RowTemplate<Order> PRODUCT_ORDER = RowTemplate.compile(
+            "  ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Klient: %s %s",
+            Order::getId, Order::getProductName, Order::getQuantity, Order::getPrice,
+            o -> o.getClient().getFirstName(), o -> o.getClient().getLastName());
+    private static final RowTemplate<ClientStats> RANKED_BY_ORDER_COUNT = RowTemplate.compile(
+            "%s %s - %d zamówień, wydał łącznie: %.2f PLN",
+            ClientStats::firstName, ClientStats::lastName, ClientStats::orderCount, ClientStats::totalSpent);
+    private static final RowTemplate<ClientStats> RANKED_BY_SPENDING = RowTemplate.compile(
+            "%s %s - wydał %.2f PLN (%d zamówień)",
+            ClientStats::firstName, ClientStats::lastName, ClientStats::totalSpent, ClientStats::orderCount);
+    private static final RowTemplate<ProductStats> POPULAR_PRODUCT = RowTemplate.compile(
+            "%s - %d zamówień, %d sztuk, wartość: %.2f PLN",
+            ProductStats::productName, ProductStats::orderCount, ProductStats::totalQuantity, ProductStats::totalValue);
+
     private final ClientRepository clientRepository;
     private final OrderRepository orderRepository;
+    private final AnalyticsView analyticsView;
+    private final SearchIndex searchIndex;
+
+    @Value("${tools.output.default-limit:50}")
+    private int defaultLimit;
 
-    public DatabaseTools(ClientRepository clientRepository, OrderRepository orderRepository) {
+    @Value("${tools.output.max-limit:500}")
+    private int maxLimit;
+
+    @Value("${tools.output.max-chars:20000}")
+    private int maxOutputChars;
+
+    public DatabaseTools(ClientRepository clientRepository, OrderRepository orderRepository, AnalyticsView analyticsView,
+                         SearchIndex searchIndex) {
         this.clientRepository = clientRepository;
         this.orderRepository = orderRepository;
+        this.analyticsView = analyticsView;
+        this.searchIndex = searchIndex;
     }
 
-    @Tool(description = "Pobiera listę wszystkich klientów z bazy danych")
-    public String listAllClients() {
-        List<Client> clients = clientRepository.findAll();
-        if (clients.isEmpty()) {
+    @Tool(description = "Pobiera listę klientów z bazy danych, stronami; przy niepełnej liście dołącza podsumowanie wszystkich klientów")
+    @ReadsData(DataDomain.CLIENTS)
+    public String listAllClients(
+            @ToolParam(description = LIMIT_DESCRIPTION, required = false) Integer limit,
+            @ToolParam(description = OFFSET_DESCRIPTION, required = false) Integer offset,
+            @ToolParam(description = "Sortowanie: id, firstName, lastName, email, registrationDate; dopisz ' desc' dla malejącego",
+                    required = false) String sortBy) {
+        Optional<Sort> sort = parseSort(sortBy, CLIENT_SORT_FIELDS);
+        if (sort.isEmpty()) {
+            return invalidSort(sortBy, CLIENT_SORT_FIELDS);
+        }
+        Page<Client> page = clientRepository.findAll(pageRequest(limit, offset, sort.get()));
+        if (page.getTotalElements() == 0) {
             return "Brak klientów w bazie danych.";
         }
-        return clients.stream()
-                .map(c -> String.format("ID: %d, Imię: %s, Nazwisko: %s, Email: %s, Telefon: %s",
-                        c.getId(), c.getFirstName(), c.getLastName(), c.getEmail(), c.getPhone()))
-                .collect(Collectors.joining("\n"));
+        return boundedPage("", page, CLIENT, this::clientSummary);
     }
 
     @Tool(description = "Pobiera klienta po jego ID")
+    @ReadsData(DataDomain.CLIENTS)
     public String getClientById(@ToolParam(description = "ID klienta") Long id) {
         Optional<Client> client = clientRepository.findById(id);
-        return client.map(c -> String.format("ID: %d, Imię: %s, Nazwisko: %s, Email: %s, Telefon: %s, Data rejestracji: %s",
-                c.getId(), c.getFirstName(), c.getLastName(), c.getEmail(), c.getPhone(), c.getRegistrationDate()))
+        return client.map(CLIENT_DETAILS::format)
                 .orElse("Nie znaleziono klienta o ID: " + id);
     }
 
     @Tool(description = "Zwraca liczbę klientów w bazie danych")
+    @ReadsData(DataDomain.CLIENTS)
     public String getClientCount() {
-        long count = clientRepository.count();
+        long count = analyticsView.getSummary().clientCount();
         return "Liczba klientów w bazie: " + count;
     }
 
     @Tool(description = "Szuka klienta po adresie email")
+    @ReadsData(DataDomain.CLIENTS)
     public String searchClientByEmail(@ToolParam(description = "Adres email klienta") String email) {
         Optional<Client> client = clientRepository.findByEmail(email);
-        return client.map(c -> String.format("ID: %d, Imię: %s, Nazwisko: %s, Email: %s, Telefon: %s",
-                c.getId(), c.getFirstName(), c.getLastName(), c.getEmail(), c.getPhone()))
+        return client.map(CLIENT::format)
                 .orElse("Nie znaleziono klienta z emailem: " + email);
     }
 
     @Tool(description = "Szuka klientów po imieniu lub nazwisku")
+    @ReadsData(DataDomain.CLIENTS)
     public String searchClientByName(@ToolParam(description = "Imię lub nazwisko do wyszukania") String name) {
-        List<Client> clients = clientRepository.searchByName(name);
+        List<Long> ids = searchIndex.searchClientIds(name);
+        List<Client> clients = ids.isEmpty() ? clientRepository.searchByName(name) : findClientsInOrder(ids);
         if (clients.isEmpty()) {
             return "Nie znaleziono klientów pasujących do: " + name;
         }
-        return "Znalezieni klienci:\n" + clients.stream()
-                .map(c -> String.format("ID: %d, Imię: %s, Nazwisko: %s, Email: %s",
-                        c.getId(), c.getFirstName(), c.getLastName(), c.getEmail()))
-                .collect(Collectors.joining("\n"));
+        return RowFormatter.lines("Znalezieni klienci:\n", clients, CLIENT_MATCH);
     }
 
-    @Tool(description = "Pobiera listę wszystkich zamówień z bazy danych")
-    public String listAllOrders() {
-        List<Order> orders = orderRepository.findAll();
-        if (orders.isEmpty()) {
+    @Tool(description = "Pobiera listę zamówień z bazy danych, stronami; przy niepełnej liście dołącza podsumowanie wszystkich zamówień")
+    @ReadsData(DataDomain.ORDERS)
+    public String listAllOrders(
+            @ToolParam(description = LIMIT_DESCRIPTION, required = false) Integer limit,
+            @ToolParam(description = OFFSET_DESCRIPTION, required = false) Integer offset,
+            @ToolParam(description = "Sortowanie: id, productName, quantity, price, orderDate, status; dopisz ' desc' dla malejącego",
+                    required = false) String sortBy) {
+        Optional<Sort> sort = parseSort(sortBy, ORDER_SORT_FIELDS);
+        if (sort.isEmpty()) {
+            return invalidSort(sortBy, ORDER_SORT_FIELDS);
+        }
+        Page<Order> page = orderRepository.findAll(pageRequest(limit, offset, sort.get()));
+        if (page.getTotalElements() == 0) {
             return "Brak zamówień w bazie danych.";
         }
-        return orders.stream()
-                .map(o -> String.format("ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s, Klient ID: %d",
-                        o.getId(), o.getProductName(), o.getQuantity(), o.getPrice(), o.getStatus(),
-                        o.getClient().getId()))
-                .collect(Collectors.joining("\n"));
+        return boundedPage("", page, ORDER, () -> orderSummary(null));
     }
 
     @Tool(description = "Pobiera zamówienie po jego ID")
+    @ReadsData(DataDomain.ORDERS)
     public String getOrderById(@ToolParam(description = "ID zamówienia") Long id) {
         Optional<Order> order = orderRepository.findById(id);
-        return order.map(o -> String.format("ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s, Klient ID: %d, Data: %s",
-                o.getId(), o.getProductName(), o.getQuantity(), o.getPrice(), o.getStatus(),
-                o.getClient().getId(), o.getOrderDate()))
+        return order.map(ORDER_DETAILS::format)
                 .orElse("Nie znaleziono zamówienia o ID: " + id);
     }
 
     @Tool(description = "Pobiera wszystkie zamówienia dla konkretnego klienta")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
     public String getOrdersForClient(@ToolParam(description = "ID klienta") Long clientId) {
         Optional<Client> client = clientRepository.findById(clientId);
         if (client.isEmpty()) {
@@ -104,227 +206,321 @@ public class DatabaseTools {
         if (orders.isEmpty()) {
             return "Klient " + client.get().getFirstName() + " " + client.get().getLastName() + " nie ma żadnych zamówień.";
         }
-        return "Zamówienia klienta " + client.get().getFirstName() + " " + client.get().getLastName() + ":\n" +
-                orders.stream()
-                .map(o -> String.format("  ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Status: %s",
-                        o.getId(), o.getProductName(), o.getQuantity(), o.getPrice(), o.getStatus()))
-                .collect(Collectors.joining("\n"));
+        return RowFormatter.lines(
+                "Zamówienia klienta " + client.get().getFirstName() + " " + client.get().getLastName() + ":\n",
+                orders, CLIENT_ORDER);
     }
 
     @Tool(description = "Zwraca liczbę zamówień w bazie danych")
+    @ReadsData(DataDomain.ORDERS)
     public String getOrderCount() {
-        long count = orderRepository.count();
+        long count = analyticsView.getSummary().orderCount();
         return "Liczba zamówień w bazie: " + count;
     }
 
-    @Tool(description = "Pobiera zamówienia według statusu: NEW, PROCESSING, SHIPPED, DELIVERED, CANCELLED")
-    public String getOrdersByStatus(@ToolParam(description = "Status zamówienia") String status) {
+    @Tool(description = "Pobiera zamówienia według statusu: NEW, PROCESSING, SHIPPED, DELIVERED, CANCELLED; stronami, z podsumowaniem przy niepełnej liście")
+    @ReadsData(DataDomain.ORDERS)
+    public String getOrdersByStatus(
+            @ToolParam(description = "Status zamówienia") String status,
+            @ToolParam(description = LIMIT_DESCRIPTION, required = false) Integer limit,
+            @ToolParam(description = OFFSET_DESCRIPTION, required = false) Integer offset,
+            @ToolParam(description = "Sortowanie: id, productName, quantity, price, orderDate; dopisz ' desc' dla malejącego",
+                    required = false) String sortBy) {
+        OrderStatus orderStatus;
         try {
-            OrderStatus orderStatus = OrderStatus.valueOf(status.toUpperCase());
-            List<Order> orders = orderRepository.findByStatus(orderStatus);
-            if (orders.isEmpty()) {
-                return "Brak zamówień ze statusem: " + status;
-            }
-            return "Zamówienia ze statusem " + status + ":\n" + orders.stream()
-                    .map(o -> String.format("  ID: %d, Produkt: %s, Klient ID: %d",
-                            o.getId(), o.getProductName(), o.getClient().getId()))
-                    .collect(Collectors.joining("\n"));
+            orderStatus = OrderStatus.valueOf(status.toUpperCase());
         } catch (IllegalArgumentException e) {
             return "Nieprawidłowy status. Dostępne statusy: NEW, PROCESSING, SHIPPED, DELIVERED, CANCELLED";
         }
+        Optional<Sort> sort = parseSort(sortBy, ORDER_SORT_FIELDS);
+        if (sort.isEmpty()) {
+            return invalidSort(sortBy, ORDER_SORT_FIELDS);
+        }
+        Page<Order> page = orderRepository.findByStatus(orderStatus, pageRequest(limit, offset, sort.get()));
+        if (page.getTotalElements() == 0) {
+            return "Brak zamówień ze statusem: " + status;
+        }
+        return boundedPage("Zamówienia ze statusem " + status + ":\n", page, STATUS_ORDER, () -> orderSummary(orderStatus));
     }
 
     @Tool(description = "Oblicza ile łącznie wydał dany klient na zamówienia")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
     public String getTotalSpentByClient(@ToolParam(description = "ID klienta") Long clientId) {
         Optional<Client> client = clientRepository.findById(clientId);
         if (client.isEmpty()) {
             return "Nie znaleziono klienta o ID: " + clientId;
         }
         
-        BigDecimal total = orderRepository.getTotalSpentByClient(clientId);
-        if (total == null) {
+        if (analyticsView.getOrderCount(clientId) == 0) {
             return "Klient " + client.get().getFirstName() + " " + client.get().getLastName() + " nie ma żadnych zamówień.";
         }
+        BigDecimal total = analyticsView.getTotalSpent(clientId);
         return String.format("Klient %s %s wydał łącznie: %.2f PLN", 
                 client.get().getFirstName(), client.get().getLastName(), total);
     }
 
     @Tool(description = "Zwraca podsumowanie bazy danych - liczbę klientów, zamówień i łączną wartość")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
     public String getDatabaseSummary() {
-        long clientCount = clientRepository.count();
-        long orderCount = orderRepository.count();
-        
-        BigDecimal totalRevenue = orderRepository.findAll().stream()
-                .map(o -> o.getPrice().multiply(BigDecimal.valueOf(o.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        DatabaseSummary summary = analyticsView.getSummary();
         
         return String.format("""
                 Podsumowanie bazy danych:
                 - Liczba klientów: %d
                 - Liczba zamówień: %d
                 - Łączna wartość zamówień: %.2f PLN""",
-                clientCount, orderCount, totalRevenue);
+                summary.clientCount(), summary.orderCount(), summary.totalRevenue());
     }
 
-    @Tool(description = "Wyszukuje zamówienia po nazwie produktu")
-    public String searchOrdersByProduct(@ToolParam(description = "Nazwa produktu") String productName) {
-        List<Order> orders = orderRepository.findByProductNameContainingIgnoreCase(productName);
-        if (orders.isEmpty()) {
+    @Tool(description = "Wyszukuje zamówienia po nazwie produktu, stronami; przy niepełnej liście dołącza podsumowanie wszystkich pasujących zamówień")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
+    public String searchOrdersByProduct(
+            @ToolParam(description = "Nazwa produktu") String productName,
+            @ToolParam(description = LIMIT_DESCRIPTION, required = false) Integer limit,
+            @ToolParam(description = OFFSET_DESCRIPTION, required = false) Integer offset) {
+        Map<String, ProductStats> stats = analyticsView.getProductStats().stream()
+                .collect(Collectors.toMap(ProductStats::productName, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+        List<String> products = searchIndex.searchProductNames(productName);
+        if (products.isEmpty()) {
+            products = matchProductNames(productName, stats.keySet());
+        }
+        if (products.isEmpty()) {
             return "Nie znaleziono zamówień dla produktu: " + productName;
         }
-        return "Zamówienia dla produktu '" + productName + "':\n" + orders.stream()
-                .map(o -> String.format("  ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Klient: %s %s",
-                        o.getId(), o.getProductName(), o.getQuantity(), o.getPrice(),
-                        o.getClient().getFirstName(), o.getClient().getLastName()))
-                .collect(Collectors.joining("\n"));
+        Page<Order> page = orderRepository.findByProductNameNormIn(products.stream().map(TextNormalizer::normalize).toList(),
+                pageRequest(limit, offset, Sort.by("id")));
+        if (page.getTotalElements() == 0) {
+            return "Nie znaleziono zamówień dla produktu: " + productName;
+        }
+        List<String> matched = products;
+        return boundedPage("Zamówienia dla produktu '" + productName + "':\n", page, PRODUCT_ORDER,
+                () -> productSummary(matched, stats));
     }
 
-    @Tool(description = "Zwraca ranking klientów według liczby zamówień - kto ma najwięcej zamówień")
-    public String getClientsRankedByOrderCount() {
-        List<Client> clients = clientRepository.findAll();
-        if (clients.isEmpty()) {
-            return "Brak klientów w bazie.";
-        }
-        
-        var ranked = clients.stream()
-                .map(c -> {
-                    long orderCount = orderRepository.countOrdersByClient(c.getId());
-                    BigDecimal totalSpent = orderRepository.getTotalSpentByClient(c.getId());
-                    return new Object[]{c, orderCount, totalSpent != null ? totalSpent : BigDecimal.ZERO};
-                })
-                .sorted((a, b) -> Long.compare((Long) b[1], (Long) a[1]))
-                .toList();
-        
-        StringBuilder sb = new StringBuilder("Ranking klientów według liczby zamówień:\n");
-        int position = 1;
-        for (var entry : ranked) {
-            Client c = (Client) entry[0];
-            long count = (Long) entry[1];
-            BigDecimal spent = (BigDecimal) entry[2];
-            sb.append(String.format("%d. %s %s - %d zamówień, wydał łącznie: %.2f PLN\n",
-                    position++, c.getFirstName(), c.getLastName(), count, spent));
-        }
-        return sb.toString();
+    @Tool(description = "Zwraca ranking klientów według liczby zamówień - kto ma najwięcej zamówień; stronami, od góry rankingu")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
+    public String getClientsRankedByOrderCount(
+            @ToolParam(description = LIMIT_DESCRIPTION, required = false) Integer limit,
+            @ToolParam(description = OFFSET_DESCRIPTION, required = false) Integer offset) {
+        OffsetPageRequest pageable = pageRequest(limit, offset, Sort.unsorted());
+        return boundedRanking("Ranking klientów według liczby zamówień:\n",
+                orderRepository.getClientStatsByOrderCount(pageable), pageable, RANKED_BY_ORDER_COUNT);
     }
 
-    @Tool(description = "Zwraca ranking klientów według wydanej kwoty - kto wydał najwięcej pieniędzy")
-    public String getClientsRankedBySpending() {
-        List<Client> clients = clientRepository.findAll();
-        if (clients.isEmpty()) {
-            return "Brak klientów w bazie.";
-        }
-        
-        var ranked = clients.stream()
-                .map(c -> {
-                    BigDecimal totalSpent = orderRepository.getTotalSpentByClient(c.getId());
-                    long orderCount = orderRepository.countOrdersByClient(c.getId());
-                    return new Object[]{c, totalSpent != null ? totalSpent : BigDecimal.ZERO, orderCount};
-                })
-                .sorted((a, b) -> ((BigDecimal) b[1]).compareTo((BigDecimal) a[1]))
-                .toList();
-        
-        StringBuilder sb = new StringBuilder("Ranking klientów według wydanych pieniędzy:\n");
-        int position = 1;
-        for (var entry : ranked) {
-            Client c = (Client) entry[0];
-            BigDecimal spent = (BigDecimal) entry[1];
-            long count = (Long) entry[2];
-            sb.append(String.format("%d. %s %s - wydał %.2f PLN (%d zamówień)\n",
-                    position++, c.getFirstName(), c.getLastName(), spent, count));
-        }
-        return sb.toString();
+    @Tool(description = "Zwraca ranking klientów według wydanej kwoty - kto wydał najwięcej pieniędzy; stronami, od góry rankingu")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
+    public String getClientsRankedBySpending(
+            @ToolParam(description = LIMIT_DESCRIPTION, required = false) Integer limit,
+            @ToolParam(description = OFFSET_DESCRIPTION, required = false) Integer offset) {
+        OffsetPageRequest pageable = pageRequest(limit, offset, Sort.unsorted());
+        return boundedRanking("Ranking klientów według wydanych pieniędzy:\n",
+                orderRepository.getClientStatsBySpending(pageable), pageable, RANKED_BY_SPENDING);
     }
 
     @Tool(description = "Zwraca najpopularniejsze produkty według liczby zamówień")
+    @ReadsData(DataDomain.ORDERS)
     public String getMostPopularProducts() {
-        List<Order> orders = orderRepository.findAll();
-        if (orders.isEmpty()) {
+        List<ProductStats> ranked = analyticsView.getProductStats();
+        if (ranked.isEmpty()) {
             return "Brak zamówień w bazie.";
         }
-        
-        var productStats = orders.stream()
-                .collect(Collectors.groupingBy(
-                        Order::getProductName,
-                        Collectors.collectingAndThen(
-                                Collectors.toList(),
-                                list -> new Object[]{
-                                        list.size(),
-                                        list.stream().mapToInt(Order::getQuantity).sum(),
-                                        list.stream()
-                                                .map(o -> o.getPrice().multiply(BigDecimal.valueOf(o.getQuantity())))
-                                                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                                }
-                        )
-                ));
-        
-        var ranked = productStats.entrySet().stream()
-                .sorted((a, b) -> Integer.compare((Integer) b.getValue()[0], (Integer) a.getValue()[0]))
-                .toList();
-        
-        StringBuilder sb = new StringBuilder("Najpopularniejsze produkty:\n");
-        int position = 1;
-        for (var entry : ranked) {
-            String product = entry.getKey();
-            int orderCount = (Integer) entry.getValue()[0];
-            int totalQty = (Integer) entry.getValue()[1];
-            BigDecimal totalValue = (BigDecimal) entry.getValue()[2];
-            sb.append(String.format("%d. %s - %d zamówień, %d sztuk, wartość: %.2f PLN\n",
-                    position++, product, orderCount, totalQty, totalValue));
-        }
-        return sb.toString();
+        return RowFormatter.ranking("Najpopularniejsze produkty:\n", ranked, POPULAR_PRODUCT);
     }
 
     @Tool(description = "Zwraca klienta z największą liczbą zamówień")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
     public String getTopClientByOrderCount() {
-        List<Client> clients = clientRepository.findAll();
-        if (clients.isEmpty()) {
-            return "Brak klientów w bazie.";
-        }
-        
-        Client topClient = null;
-        long maxOrders = 0;
-        
-        for (Client c : clients) {
-            long count = orderRepository.countOrdersByClient(c.getId());
-            if (count > maxOrders) {
-                maxOrders = count;
-                topClient = c;
-            }
+        Optional<Client> topClient = findTopClient(analyticsView.getTopClientIdsByOrderCount(1));
+        if (topClient.isEmpty()) {
+            return analyticsView.getSummary().clientCount() == 0 ? "Brak klientów w bazie." : "Żaden klient nie ma zamówień.";
         }
         
-        if (topClient == null || maxOrders == 0) {
-            return "Żaden klient nie ma zamówień.";
-        }
-        
-        BigDecimal spent = orderRepository.getTotalSpentByClient(topClient.getId());
+        Client c = topClient.get();
         return String.format("Klient z największą liczbą zamówień: %s %s\n- Liczba zamówień: %d\n- Łącznie wydał: %.2f PLN",
-                topClient.getFirstName(), topClient.getLastName(), maxOrders, spent != null ? spent : BigDecimal.ZERO);
+                c.getFirstName(), c.getLastName(), analyticsView.getOrderCount(c.getId()), analyticsView.getTotalSpent(c.getId()));
     }
 
     @Tool(description = "Zwraca klienta który wydał najwięcej pieniędzy")
+    @ReadsData({DataDomain.CLIENTS, DataDomain.ORDERS})
     public String getTopClientBySpending() {
-        List<Client> clients = clientRepository.findAll();
-        if (clients.isEmpty()) {
-            return "Brak klientów w bazie.";
+        Optional<Client> topClient = findTopClient(analyticsView.getTopClientIdsBySpending(1));
+        if (topClient.isEmpty()) {
+            return analyticsView.getSummary().clientCount() == 0 ? "Brak klientów w bazie." : "Żaden klient nie ma zamówień.";
         }
         
-        Client topClient = null;
-        BigDecimal maxSpent = BigDecimal.ZERO;
-        
-        for (Client c : clients) {
-            BigDecimal spent = orderRepository.getTotalSpentByClient(c.getId());
-            if (spent != null && spent.compareTo(maxSpent) > 0) {
-                maxSpent = spent;
-                topClient = c;
+        Client c = topClient.get();
+        return String.format("Klient który wydał najwięcej: %s %s\n- Łącznie wydał: %.2f PLN\n- Liczba zamówień: %d",
+                c.getFirstName(), c.getLastName(), analyticsView.getTotalSpent(c.getId()), analyticsView.getOrderCount(c.getId()));
+    }
+
+    /**
+     * The page as rows; when it is not the complete result (more rows before or after it, or rows
+     * cut off by the size limit), a summary of all matching rows and a paging hint are added.
+     * The whole text, summary and hint included, stays within {@code tools.output.max-chars}.
+     */
+    private <T> String boundedPage(String header, Page<T> page, RowTemplate<? super T> template, Supplier<String> summary) {
+        return boundedPage(header, page, summary,
+                (rows, maxChars) -> RowFormatter.linesWithin(header, rows, template, maxChars));
+    }
+
+    /**
+     * A page of a ranking numbered from its offset, like {@link #boundedPage}. The total is the
+     * client count of the {@link AnalyticsView}, so the ranking itself is the only statement.
+     */
+    private String boundedRanking(String header, List<ClientStats> rows, OffsetPageRequest pageable,
+                                  RowTemplate<ClientStats> template) {
+        DatabaseSummary summary = analyticsView.getSummary();
+        if (summary.clientCount() == 0 && rows.isEmpty()) {
+            return "Brak klientów w bazie.";
+        }
+        int firstPosition = (int) pageable.getOffset() + 1;
+        return boundedPage(header, new PageImpl<>(rows, pageable, summary.clientCount()),
+                () -> String.format("Podsumowanie: %d klientów, %d zamówień, łączna wartość: %.2f PLN",
+                        summary.clientCount(), summary.orderCount(), summary.totalRevenue()),
+                (page, maxChars) -> RowFormatter.rankingWithin(header, page, template, firstPosition, maxChars));
+    }
+
+    private <T> String boundedPage(String header, Page<T> page, Supplier<String> summary,
+                                   BiFunction<List<T>, Integer, RowFormatter.Bounded> render) {
+        long offset = page.getPageable().getOffset();
+        long total = page.getTotalElements();
+        if (page.getContent().isEmpty()) {
+            return header + "Brak wierszy od offset=" + offset + " (łącznie: " + total + ").";
+        }
+        if (offset == 0 && page.getContent().size() == total) {
+            RowFormatter.Bounded complete = render.apply(page.getContent(), maxOutputChars);
+            if (complete.rows() == total) {
+                return complete.text();
             }
         }
-        
-        if (topClient == null) {
-            return "Żaden klient nie ma zamówień.";
+
+        String head = summary.get() + "\n\n";
+        // room for the longest hint this page can get, so the rows are cut before the limit is reached
+        int hintChars = pagingHint(offset, page.getContent().size(), total, true, true).length();
+        RowFormatter.Bounded rendered = render.apply(page.getContent(), Math.max(0, maxOutputChars - head.length() - hintChars));
+        return head + rendered.text() + pagingHint(offset, rendered.rows(), total,
+                rendered.rows() < page.getContent().size(), offset + rendered.rows() < total);
+    }
+
+    private String pagingHint(long offset, int rows, long total, boolean truncated, boolean more) {
+        StringBuilder hint = new StringBuilder("\n\nPokazano wiersze ");
+        hint.append(offset + 1).append('-').append(offset + rows).append(" z ").append(total).append('.');
+        if (truncated) {
+            hint.append(" Wynik skrócony do ").append(maxOutputChars).append(" znaków.");
         }
-        
-        long orderCount = orderRepository.countOrdersByClient(topClient.getId());
-        return String.format("Klient który wydał najwięcej: %s %s\n- Łącznie wydał: %.2f PLN\n- Liczba zamówień: %d",
-                topClient.getFirstName(), topClient.getLastName(), maxSpent, orderCount);
+        if (more) {
+            hint.append(" Kolejne wiersze: offset=").append(offset + rows).append('.');
+        }
+        return hint.toString();
+    }
+
+    private static String productSummary(List<String> products, Map<String, ProductStats> stats) {
+        long orders = 0;
+        long quantity = 0;
+        BigDecimal value = BigDecimal.ZERO;
+        for (String product : products) {
+            ProductStats productStats = stats.get(product);
+            if (productStats != null) {
+                orders += productStats.orderCount();
+                quantity += productStats.totalQuantity();
+                value = value.add(productStats.totalValue());
+            }
+        }
+        return String.format("Podsumowanie: %d zamówień, %d sztuk, łączna wartość: %.2f PLN\n- Produkty: %s",
+                orders, quantity, value, products.stream()
+                        .map(p -> p + " (" + (stats.containsKey(p) ? stats.get(p).orderCount() : 0) + ")")
+                        .collect(Collectors.joining(", ")));
+    }
+
+    /** Product names starting with the query once normalized, or else containing it, as the repository search does. */
+    private static List<String> matchProductNames(String query, Collection<String> productNames) {
+        String normalized = TextNormalizer.normalize(query);
+        if (normalized == null) {
+            return List.of();
+        }
+        List<String> prefixMatches = productNames.stream()
+                .filter(name -> TextNormalizer.normalize(name).startsWith(normalized)).toList();
+        return !prefixMatches.isEmpty() ? prefixMatches : productNames.stream()
+                .filter(name -> TextNormalizer.normalize(name).contains(normalized)).toList();
+    }
+
+    private String clientSummary() {
+        ClientSummary summary = clientRepository.summarizeClients();
+        List<ValueCount> lastNames = clientRepository.getLastNameCounts(PageRequest.of(0, SUMMARY_TOP_K));
+        return String.format("Podsumowanie klientów: %d, rejestracje od %s do %s.\nNajczęstsze nazwiska: %s",
+                summary.count(), summary.firstRegistration(), summary.lastRegistration(),
+                lastNames.stream().map(n -> n.value() + " (" + n.count() + ")").collect(Collectors.joining(", ")));
+    }
+
+    private String orderSummary(OrderStatus status) {
+        OrderSummary summary = status == null ? orderRepository.summarizeOrders() : orderRepository.summarizeOrdersByStatus(status);
+        List<ProductStats> topProducts = status == null
+                ? analyticsView.getProductStats().stream().limit(SUMMARY_TOP_K).toList()
+                : orderRepository.getProductStatsByStatus(status, PageRequest.of(0, SUMMARY_TOP_K));
+        String text = String.format("""
+                Podsumowanie zamówień%s: %d zamówień, %d sztuk, łączna wartość: %.2f PLN
+                - Cena: min %.2f PLN, max %.2f PLN, średnio %.2f PLN
+                - Daty: od %s do %s
+                - Najpopularniejsze produkty: %s""",
+                status == null ? "" : " ze statusem " + status, summary.count(), summary.totalQuantity(),
+                summary.totalValue(), summary.minPrice(), summary.maxPrice(), summary.avgPrice(),
+                summary.firstOrderDate(), summary.lastOrderDate(),
+                topProducts.stream().map(p -> p.productName() + " (" + p.orderCount() + ")").collect(Collectors.joining(", ")));
+        if (status != null) {
+            return text;
+        }
+        return text + "\n- Statusy: " + orderRepository.getStatusCounts().stream()
+                .map(c -> c.status() + " " + c.count())
+                .collect(Collectors.joining(", "));
+    }
+
+    private OffsetPageRequest pageRequest(Integer limit, Integer offset, Sort sort) {
+        int pageSize = limit == null ? defaultLimit : Math.clamp(limit, 1, maxLimit);
+        return new OffsetPageRequest(offset == null ? 0 : Math.max(0, offset), pageSize, sort);
+    }
+
+    /** {@code "price"}, {@code "price desc"} or {@code "-price"}; empty when the field is not sortable. */
+    private static Optional<Sort> parseSort(String sortBy, Map<String, String> fields) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return Optional.of(Sort.by("id"));
+        }
+        String[] tokens = sortBy.trim().split("[\\s,:]+");
+        String field = tokens[0];
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (field.startsWith("-")) {
+            field = field.substring(1);
+            direction = Sort.Direction.DESC;
+        }
+        if (tokens.length > 1 && tokens[1].equalsIgnoreCase("desc")) {
+            direction = Sort.Direction.DESC;
+        }
+        String property = fields.get(field.toLowerCase(Locale.ROOT));
+        if (property == null) {
+            return Optional.empty();
+        }
+        Sort sort = Sort.by(direction, property);
+        return Optional.of(property.equals("id") ? sort : sort.and(Sort.by("id")));
+    }
+
+    private static String invalidSort(String sortBy, Map<String, String> fields) {
+        return "Nieprawidłowe sortowanie: " + sortBy + ". Dostępne pola: " + String.join(", ", fields.values());
+    }
+
+    private static Map<String, String> sortFields(String... properties) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (String property : properties) {
+            fields.put(property.toLowerCase(Locale.ROOT), property);
+        }
+        return fields;
+    }
+
+    private List<Client> findClientsInOrder(List<Long> ids) {
+        Map<Long, Client> byId = clientRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Client::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private Optional<Client> findTopClient(List<Long> topIds) {
+        return topIds.isEmpty() ? Optional.empty() : clientRepository.findById(topIds.get(0));
     }
 }
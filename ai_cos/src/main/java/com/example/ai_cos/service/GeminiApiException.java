@@ -0,0 +1,34 @@
+package com.example.ai_cos.service;
+
+import java.time.Duration;
+
+public class GeminiApiException extends RuntimeException {
+
+    private final int statusCode;
+    private final String responseBody;
+    private final Duration retryAfter;
+
+    public GeminiApiException(int statusCode, String responseBody) {
+        this(statusCode, responseBody, null);
+    }
+
+    public GeminiApiException(int statusCode, String responseBody, Duration retryAfter) {
+        super("Gemini API zwróciło HTTP " + statusCode + ": " + responseBody);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /** How long the server asked us to wait before retrying, or {@code null} if it did not say. */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
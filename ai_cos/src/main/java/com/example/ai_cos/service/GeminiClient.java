@@ -0,0 +1,154 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.config.ExecutorFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Non-blocking Gemini transport on {@link HttpClient}. A single client is shared by all
+ * requests so connections to the Gemini host are kept alive and multiplexed over HTTP/2.
+ */
+@Component
+public class GeminiClient {
+
+    private static final String GENERATE_PATH = "%s/v1beta/models/%s:generateContent?key=%s";
+    private static final String STREAM_PATH = "%s/v1beta/models/%s:streamGenerateContent?alt=sse&key=%s";
+    /** {@code RetryInfo} detail of a Gemini error body, e.g. {@code "retryDelay": "37s"}. */
+    private static final Pattern RETRY_DELAY = Pattern.compile("\"retryDelay\"\\s*:\\s*\"(\\d+(?:\\.\\d+)?)s\"");
+
+    private final ObjectMapper objectMapper;
+    private final ExecutorService httpExecutor;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    @Value("${gemini.api.key}")
+    private String apiKey;
+
+    @Value("${gemini.model:gemini-2.0-flash}")
+    private String model;
+
+    @Value("${gemini.base-url:https://generativelanguage.googleapis.com}")
+    private String baseUrl;
+
+    public GeminiClient(ExecutorFactory executorFactory,
+                        @Value("${gemini.http.connect-timeout:5s}") Duration connectTimeout,
+                        @Value("${gemini.http.read-timeout:60s}") Duration readTimeout) {
+        this.objectMapper = new ObjectMapper();
+        this.httpExecutor = executorFactory.create("gemini-http");
+        this.readTimeout = readTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .executor(httpExecutor)
+                .build();
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    public CompletableFuture<JsonNode> generateAsync(ObjectNode requestBody) {
+        HttpRequest request;
+        try {
+            request = buildRequest(String.format(GENERATE_PATH, baseUrl, model, apiKey), requestBody);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() >= 400) {
+                        throw new GeminiApiException(response.statusCode(), response.body(),
+                                retryAfter(response.headers(), response.body()));
+                    }
+                    try {
+                        return objectMapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Calls streamGenerateContent and passes every SSE chunk to {@code onChunk} as it arrives.
+     * Blocks the calling thread until the stream ends.
+     */
+    public void stream(ObjectNode requestBody, Consumer<JsonNode> onChunk) throws IOException, InterruptedException {
+        HttpRequest request = buildRequest(String.format(STREAM_PATH, baseUrl, model, apiKey), requestBody);
+        HttpResponse<Stream<String>> response = httpClient.send(request, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> lines = response.body()) {
+            if (response.statusCode() >= 400) {
+                String body = String.join("\n", lines.toList());
+                throw new GeminiApiException(response.statusCode(), body, retryAfter(response.headers(), body));
+            }
+            lines.filter(line -> line.startsWith("data:"))
+                    .forEach(line -> {
+                        try {
+                            onChunk.accept(objectMapper.readTree(line.substring(5)));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        httpClient.close();
+        httpExecutor.close();
+    }
+
+    /** The {@code Retry-After} header (seconds or HTTP date), else the retry delay in the error body. */
+    static Duration retryAfter(HttpHeaders headers, String body) {
+        String header = headers.firstValue("Retry-After").orElse(null);
+        if (header != null) {
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(header.strip())));
+            } catch (NumberFormatException e) {
+                try {
+                    Duration untilDate = Duration.between(ZonedDateTime.now(),
+                            ZonedDateTime.parse(header.strip(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                    return untilDate.isNegative() ? Duration.ZERO : untilDate;
+                } catch (DateTimeParseException ignored) {
+                    // fall back to the body
+                }
+            }
+        }
+        if (body != null) {
+            Matcher matcher = RETRY_DELAY.matcher(body);
+            if (matcher.find()) {
+                return Duration.ofMillis((long) (Double.parseDouble(matcher.group(1)) * 1000));
+            }
+        }
+        return null;
+    }
+
+    private HttpRequest buildRequest(String url, ObjectNode requestBody) throws IOException {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(readTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(requestBody)))
+                .build();
+    }
+}
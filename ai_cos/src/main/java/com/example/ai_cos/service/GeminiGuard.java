@@ -0,0 +1,198 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.resilience.AdaptiveLimiter;
+import com.example.ai_cos.resilience.CircuitBreaker;
+import com.example.ai_cos.resilience.RetryPolicy;
+import com.example.ai_cos.resilience.UpstreamUnavailableException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Puts {@link GeminiClient} behind a circuit breaker, an adaptive concurrency limit and retries,
+ * so a slow or rate-limiting Gemini makes chat requests fail fast with
+ * {@link UpstreamUnavailableException} instead of piling up. Every attempt passes the breaker
+ * and the limiter again. Rate limiting, server errors, timeouts and I/O errors are retried with
+ * jittered backoff while the caller's deadline allows; a streamed call is retried only before
+ * its first chunk.
+ */
+@Component
+public class GeminiGuard {
+
+    private final GeminiClient client;
+    private final AdaptiveLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final MeterRegistry registry;
+
+    public GeminiGuard(GeminiClient client, AdaptiveLimiter limiter, CircuitBreaker circuitBreaker,
+                       RetryPolicy retryPolicy, MeterRegistry registry) {
+        this.client = client;
+        this.limiter = limiter;
+        this.circuitBreaker = circuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.registry = registry;
+        Gauge.builder("gemini.limiter.limit", limiter, AdaptiveLimiter::limit)
+                .description("Current adaptive concurrency limit for Gemini calls").register(registry);
+        Gauge.builder("gemini.limiter.in_flight", limiter, AdaptiveLimiter::inFlight).register(registry);
+        Gauge.builder("gemini.limiter.queued", limiter, AdaptiveLimiter::queued).register(registry);
+        Gauge.builder("gemini.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("0 closed, 1 open, 2 half-open").register(registry);
+    }
+
+    public boolean isConfigured() {
+        return client.isConfigured();
+    }
+
+    /** {@link GeminiClient#generateAsync} with protection; {@code deadlineNanos} is on the {@link System#nanoTime()} scale. */
+    public CompletableFuture<JsonNode> generateAsync(ObjectNode requestBody, long deadlineNanos) {
+        return attempt(requestBody, deadlineNanos, 1);
+    }
+
+    /** {@link GeminiClient#stream} with protection; blocks while waiting for a slot or a retry. */
+    public void stream(ObjectNode requestBody, long deadlineNanos, Consumer<JsonNode> onChunk)
+            throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            AdaptiveLimiter.Permit permit;
+            try {
+                permit = acquire(deadlineNanos).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+            boolean[] delivered = {false};
+            long start = System.nanoTime();
+            try {
+                client.stream(requestBody, chunk -> {
+                    delivered[0] = true;
+                    onChunk.accept(chunk);
+                });
+                settle(permit, start, null);
+                return;
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                settle(permit, start, e);
+                if (delivered[0] || !isRetryable(e)) {
+                    throw e;
+                }
+                Duration delay = retryDelay(e, attempt, deadlineNanos);
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    private CompletableFuture<JsonNode> attempt(ObjectNode requestBody, long deadlineNanos, int attempt) {
+        CompletableFuture<AdaptiveLimiter.Permit> permit;
+        try {
+            permit = acquire(deadlineNanos);
+        } catch (UpstreamUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return permit
+                .thenCompose(granted -> {
+                    long start = System.nanoTime();
+                    return client.generateAsync(requestBody)
+                            .whenComplete((response, error) -> settle(granted, start, error));
+                })
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (!isRetryable(cause)) {
+                        return CompletableFuture.<JsonNode>failedFuture(cause);
+                    }
+                    try {
+                        Duration delay = retryDelay(cause, attempt, deadlineNanos);
+                        return CompletableFuture.runAsync(() -> { },
+                                        CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS))
+                                .thenCompose(ignored -> attempt(requestBody, deadlineNanos, attempt + 1));
+                    } catch (UpstreamUnavailableException e) {
+                        return CompletableFuture.<JsonNode>failedFuture(e);
+                    }
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /** Passes the breaker, then waits for a limiter slot; rejections are counted and fail the returned future. */
+    private CompletableFuture<AdaptiveLimiter.Permit> acquire(long deadlineNanos) {
+        try {
+            circuitBreaker.acquire();
+        } catch (UpstreamUnavailableException e) {
+            rejected(e);
+            throw e;
+        }
+        return limiter.acquire(deadlineNanos).whenComplete((permit, error) -> {
+            if (error != null) {
+                circuitBreaker.onIgnored();
+                if (unwrap(error) instanceof UpstreamUnavailableException rejection) {
+                    rejected(rejection);
+                }
+            }
+        });
+    }
+
+    private void settle(AdaptiveLimiter.Permit permit, long start, Throwable error) {
+        long rtt = System.nanoTime() - start;
+        Throwable cause = error == null ? null : unwrap(error);
+        if (cause == null) {
+            permit.release(rtt, AdaptiveLimiter.Outcome.SUCCESS);
+            circuitBreaker.onSuccess();
+        } else if (isRetryable(cause)) {
+            permit.release(rtt, AdaptiveLimiter.Outcome.DROPPED);
+            circuitBreaker.onFailure();
+        } else {
+            permit.release(rtt, AdaptiveLimiter.Outcome.IGNORED);
+            circuitBreaker.onIgnored();
+        }
+    }
+
+    /**
+     * Delay before the next attempt, or throws {@link UpstreamUnavailableException} when the
+     * attempts are used up or the delay would run past the deadline.
+     */
+    private Duration retryDelay(Throwable cause, int attempt, long deadlineNanos) {
+        Duration retryAfter = cause instanceof GeminiApiException apiException ? apiException.getRetryAfter() : null;
+        Duration delay = retryPolicy.delay(attempt, retryAfter);
+        if (attempt >= retryPolicy.maxAttempts() || System.nanoTime() + delay.toNanos() >= deadlineNanos) {
+            boolean rateLimited = cause instanceof GeminiApiException apiException && apiException.getStatusCode() == 429;
+            UpstreamUnavailableException gaveUp = new UpstreamUnavailableException(
+                    rateLimited ? UpstreamUnavailableException.Reason.RATE_LIMITED : UpstreamUnavailableException.Reason.UPSTREAM_FAILED,
+                    retryAfter != null ? retryAfter : retryPolicy.maxDelay(), cause);
+            rejected(gaveUp);
+            throw gaveUp;
+        }
+        registry.counter("gemini.retries").increment();
+        return delay;
+    }
+
+    private void rejected(UpstreamUnavailableException e) {
+        registry.counter("gemini.rejected", "reason", e.getReason().name().toLowerCase(Locale.ROOT)).increment();
+    }
+
+    /** Rate limiting, overload, server errors, timeouts and transport errors; never client errors. */
+    static boolean isRetryable(Throwable error) {
+        if (error instanceof GeminiApiException apiException) {
+            int status = apiException.getStatusCode();
+            return status == 429 || status >= 500;
+        }
+        return error instanceof IOException || error instanceof TimeoutException;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
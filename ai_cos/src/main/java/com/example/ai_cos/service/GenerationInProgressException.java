@@ -0,0 +1,16 @@
+package com.example.ai_cos.service;
+
+/** Thrown by {@link BulkDataGenerator#start} while another generation job is still running. */
+public class GenerationInProgressException extends RuntimeException {
+
+    private final String runningJobId;
+
+    public GenerationInProgressException(String runningJobId) {
+        super("Trwa już generowanie danych (" + runningJobId + "), poczekaj na jego zakończenie");
+        this.runningJobId = runningJobId;
+    }
+
+    public String getRunningJobId() {
+        return runningJobId;
+    }
+}
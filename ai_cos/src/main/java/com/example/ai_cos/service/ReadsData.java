@@ -0,0 +1,18 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.event.DataDomain;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares which tables a read-only tool depends on, so its cached results are evicted
+ * only by writes to those tables. Tools without it are assumed to read everything.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadsData {
+    DataDomain[] value();
+}
@@ -0,0 +1,82 @@
+package com.example.ai_cos.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one computation per key at a time. Callers that ask for a key while its
+ * computation is in flight wait for that computation instead of starting their own; once it
+ * completes the key is free again, so nothing is cached beyond the flight itself.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Runnable onCoalesced;
+
+    /** {@code onCoalesced} runs once for every caller that joined a computation already in flight. */
+    public SingleFlight(Runnable onCoalesced) {
+        this.onCoalesced = onCoalesced;
+    }
+
+    /**
+     * The result of {@code computation} started for {@code key} by this or a concurrent caller.
+     * Every caller gets its own copy of the shared future, so completing or timing out one copy
+     * does not affect the others.
+     */
+    public CompletableFuture<V> runAsync(K key, Supplier<CompletableFuture<V>> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            onCoalesced.run();
+            return existing.copy();
+        }
+        try {
+            computation.get().whenComplete((value, error) -> land(key, flight, value, error));
+        } catch (RuntimeException | Error e) {
+            land(key, flight, null, e);
+        }
+        return flight.copy();
+    }
+
+    /** Blocking variant of {@link #runAsync}; the first caller computes on its own thread. */
+    public V run(K key, Supplier<V> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            onCoalesced.run();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        V value;
+        try {
+            value = computation.get();
+        } catch (RuntimeException | Error e) {
+            land(key, flight, null, e);
+            throw e;
+        }
+        land(key, flight, value, null);
+        return value;
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private void land(K key, CompletableFuture<V> flight, V value, Throwable error) {
+        inFlight.remove(key, flight);
+        if (error != null) {
+            flight.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        } else {
+            flight.complete(value);
+        }
+    }
+}
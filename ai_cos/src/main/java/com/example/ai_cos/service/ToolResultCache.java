@@ -0,0 +1,139 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.event.BulkDataChangedEvent;
+import com.example.ai_cos.event.DataDomain;
+import com.example.ai_cos.event.EntityChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Results of read-only tools keyed on tool name plus canonical JSON arguments, bounded by the
+ * approximate memory taken by keys and results. A write to a table evicts only the entries of
+ * tools that read it. Invalidation runs after {@link AnalyticsView} and the search index have
+ * applied the write, and a result is stored only if no invalidation of its tables happened
+ * while it was computed, checked atomically with the put.
+ */
+@Component
+public class ToolResultCache {
+
+    public record Key(String toolName, String arguments, Set<DataDomain> domains) {
+    }
+
+    private final ObjectMapper canonicalMapper = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+    private final boolean enabled;
+    private final Cache<Key, String> cache;
+    private final Map<DataDomain, AtomicLong> versions = new EnumMap<>(DataDomain.class);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ToolResultCache(@Value("${tools.cache.enabled:true}") boolean enabled,
+                           @Value("${tools.cache.max-weight-bytes:16777216}") long maxWeightBytes) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .<Key, String>weigher((key, result) -> 2 * (key.toolName().length() + key.arguments().length() + result.length()))
+                .<Key, String>evictionListener((key, result, cause) -> evictions.increment())
+                .build();
+        for (DataDomain domain : DataDomain.values()) {
+            versions.put(domain, new AtomicLong());
+        }
+    }
+
+    public Key key(String toolName, String arguments, Set<DataDomain> domains) {
+        return new Key(toolName, canonicalize(arguments), domains);
+    }
+
+    public String get(Key key, Supplier<String> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long[] before = snapshot(key.domains());
+        String result = loader.get();
+        if (result != null) {
+            cache.asMap().compute(key, (k, existing) -> Arrays.equals(before, snapshot(k.domains())) ? result : existing);
+        }
+        return result;
+    }
+
+    public void invalidate(DataDomain domain) {
+        versions.get(domain).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.domains().contains(domain));
+    }
+
+    public void invalidateAll() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        cache.invalidateAll();
+    }
+
+    // after the in-memory views have applied the write
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onBulkDataChanged(BulkDataChangedEvent event) {
+        event.domains().forEach(this::invalidate);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onEntityChanged(EntityChangedEvent event) {
+        DataDomain domain = DataDomain.of(event.entity());
+        if (domain != null) {
+            invalidate(domain);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("size", cache.estimatedSize());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    private long[] snapshot(Set<DataDomain> domains) {
+        long[] snapshot = new long[DataDomain.values().length];
+        for (DataDomain domain : domains) {
+            snapshot[domain.ordinal()] = versions.get(domain).get();
+        }
+        return snapshot;
+    }
+
+    private String canonicalize(String arguments) {
+        if (arguments == null || arguments.isBlank()) {
+            return "{}";
+        }
+        try {
+            return canonicalMapper.writeValueAsString(canonicalMapper.readValue(arguments, Object.class));
+        } catch (Exception e) {
+            return arguments.strip();
+        }
+    }
+}
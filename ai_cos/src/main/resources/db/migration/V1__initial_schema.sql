@@ -0,0 +1,34 @@
+-- Schema of the Client and Order entities, used by the persistent profile instead of create-drop.
+
+CREATE TABLE clients (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name        VARCHAR(255) NOT NULL,
+    last_name         VARCHAR(255) NOT NULL,
+    first_name_norm   VARCHAR(255) NOT NULL,
+    last_name_norm    VARCHAR(255) NOT NULL,
+    email             VARCHAR(255) NOT NULL,
+    phone             VARCHAR(255),
+    registration_date DATE,
+    CONSTRAINT uk_clients_email UNIQUE (email)
+);
+
+CREATE INDEX idx_clients_first_name_norm ON clients (first_name_norm);
+CREATE INDEX idx_clients_last_name_norm ON clients (last_name_norm);
+
+CREATE TABLE orders (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_name      VARCHAR(255)   NOT NULL,
+    product_name_norm VARCHAR(255)   NOT NULL,
+    quantity          INTEGER        NOT NULL,
+    price             NUMERIC(10, 2) NOT NULL,
+    order_date        TIMESTAMP(6)   NOT NULL,
+    status            VARCHAR(32),
+    client_id         BIGINT         NOT NULL,
+    CONSTRAINT ck_orders_status CHECK (status IN ('NEW', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED')),
+    CONSTRAINT fk_orders_client FOREIGN KEY (client_id) REFERENCES clients (id)
+);
+
+CREATE INDEX idx_orders_client_id ON orders (client_id);
+CREATE INDEX idx_orders_status ON orders (status);
+CREATE INDEX idx_orders_order_date ON orders (order_date);
+CREATE INDEX idx_orders_product_name_norm ON orders (product_name_norm);
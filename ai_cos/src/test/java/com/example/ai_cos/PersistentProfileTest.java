@@ -0,0 +1,84 @@
+package com.example.ai_cos;
+
+import com.example.ai_cos.config.StartupWarmup;
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.service.DataGeneratorService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("persistent")
+class PersistentProfileTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @DynamicPropertySource
+    static void dataDirectory(DynamicPropertyRegistry registry) {
+        registry.add("H2_DATA_DIR", () -> dataDir.toString());
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataGeneratorService dataGeneratorService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private StartupWarmup startupWarmup;
+
+    @Autowired
+    private ToolCallbackProvider databaseToolCallbacks;
+
+    @Test
+    void migratesSchemaIntoFileDatabase() {
+        assertThat(jdbcTemplate.queryForList("SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\"", String.class))
+                .contains("1");
+        assertThat(Files.exists(dataDir.resolve("ai_cos.mv.db"))).isTrue();
+    }
+
+    @Test
+    void entitiesRoundTripThroughMigratedSchema() {
+        Client client = dataGeneratorService.generateRandomClient();
+        Order order = dataGeneratorService.generateRandomOrder();
+
+        assertThat(order.getId()).isNotNull();
+        assertThat(clientRepository.searchByName(client.getLastName())).extracting(Client::getId).contains(client.getId());
+    }
+
+    @Test
+    void recordsWarmupTimings() {
+        assertThat(startupWarmup.report()).containsKeys("jvmToReadyMs", "analyticsViewMs", "searchIndexMs", "warmupMs");
+    }
+
+    @Test
+    void recordsFirstToolQueryLatency() {
+        ToolCallback summary = Arrays.stream(databaseToolCallbacks.getToolCallbacks())
+                .filter(callback -> callback.getToolDefinition().name().equals("getDatabaseSummary"))
+                .findFirst().orElseThrow();
+        summary.call("{}");
+
+        assertThat(startupWarmup.report()).containsKey("firstQuery");
+        assertThat((Map<?, ?>) startupWarmup.report().get("firstQuery")).containsKeys("tool", "latencyMs", "afterReadyMs");
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.ai_cos.controller;
+
+import com.example.ai_cos.service.ChatService;
+import com.example.ai_cos.service.ChatSessionStore;
+import com.example.ai_cos.support.GeminiStubServer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ChatEndpointsTest {
+
+    private static final GeminiStubServer STUB = GeminiStubServer.start();
+
+    @DynamicPropertySource
+    static void geminiProperties(DynamicPropertyRegistry registry) {
+        registry.add("gemini.base-url", STUB::baseUrl);
+        registry.add("gemini.api.key", () -> "test-key");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:chat-endpoints");
+        registry.add("chat.cache.enabled", () -> "false");
+        registry.add("tools.cache.enabled", () -> "false");
+        registry.add("gemini.retry.base-delay", () -> "10ms");
+    }
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ChatSessionStore chatSessionStore;
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @BeforeEach
+    void resetStub() {
+        STUB.reset();
+    }
+
+    @Test
+    void forwardsChunksAndHandlesToolCallsMidStream() throws Exception {
+        STUB.enqueueFunctionCalls("getClientCount", "getOrderCount")
+                .enqueueText("Witaj", " Użytkowniku", "!");
+
+        List<String> chunks = new ArrayList<>();
+        chatService.chatStream("Ilu mamy klientów i zamówień?", chunks::add);
+
+        assertThat(chunks).containsExactly("Witaj", " Użytkowniku", "!");
+        assertThat(STUB.requests()).hasSize(2);
+        JsonNode followUp = STUB.requests().get(1);
+        assertThat(followUp.get("contents")).hasSize(3);
+        assertThat(followUp.get("contents").get(2).get("parts")).hasSize(2);
+        assertThat(followUp.get("contents").get(2).get("parts").get(0).has("functionResponse")).isTrue();
+        assertThat(followUp.has("tools")).isTrue();
+    }
+
+    @Test
+    void asyncChatRunsToolLoopUntilTextAnswer() {
+        STUB.enqueueFunctionCalls("getClientsRankedByOrderCount", "getClientsRankedBySpending")
+                .enqueueText("Witaj Użytkowniku!");
+
+        String response = chatService.chatAsync("Kto jest głównym klientem?").join();
+
+        assertThat(response).isEqualTo("Witaj Użytkowniku!");
+        assertThat(STUB.requests()).hasSize(2);
+        assertThat(STUB.requests().get(1).get("contents").get(2).get("parts")).hasSize(2);
+    }
+
+    @Test
+    void parallelFunctionCallsAreAnsweredInOrderInOneStep() {
+        STUB.enqueueFunctionCalls("a", "b").enqueueText("Gotowe");
+
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/chat", Map.of("message", "Sprawdź a i b"), Map.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).containsEntry("response", "Gotowe");
+        assertThat(STUB.requests()).hasSize(2);
+        JsonNode parts = STUB.requests().get(1).get("contents").get(2).get("parts");
+        assertThat(parts).hasSize(2);
+        assertThat(parts).extracting(part -> part.path("functionResponse").path("name").asText())
+                .containsExactly("a", "b");
+        assertThat(parts).extracting(part -> part.path("functionResponse").path("response").path("result").asText())
+                .containsExactly("Nieznane narzędzie: a", "Nieznane narzędzie: b");
+    }
+
+    @Test
+    void functionCallWithoutNameIsAnsweredAsUnknownTool() {
+        STUB.enqueueFunctionCalls("getClientCount", null).enqueueText("Gotowe");
+
+        assertThat(chatService.chat("Ilu mamy klientów?")).isEqualTo("Gotowe");
+        JsonNode parts = STUB.requests().get(1).get("contents").get(2).get("parts");
+        assertThat(parts).hasSize(2);
+        assertThat(parts.get(0).path("functionResponse").path("response").path("result").asText())
+                .doesNotStartWith("Nieznane narzędzie");
+        assertThat(parts.get(1).path("functionResponse").path("response").path("result").asText())
+                .isEqualTo("Nieznane narzędzie: ");
+    }
+
+    @Test
+    void identicalConcurrentQuestionsShareOneGeminiRoundTrip() {
+        STUB.withLatency(Duration.ofMillis(300)).enqueueText("Witaj Użytkowniku!");
+        double coalescedBefore = meterRegistry.counter("coalesced.calls", "level", "chat").count();
+        try {
+            CompletableFuture<String> first = chatService.chatAsync("Jaki jest stan bazy?");
+            CompletableFuture<String> second = chatService.chatAsync("jaki jest stan bazy");
+
+            assertThat(first.join()).isEqualTo("Witaj Użytkowniku!");
+            assertThat(second.join()).isEqualTo("Witaj Użytkowniku!");
+        } finally {
+            STUB.withLatency(Duration.ZERO);
+        }
+        assertThat(STUB.requests()).hasSize(1);
+        assertThat(meterRegistry.counter("coalesced.calls", "level", "chat").count()).isEqualTo(coalescedBefore + 1);
+    }
+
+    @Test
+    void transientGeminiErrorsAreRetried() {
+        STUB.enqueueError(503, null).enqueueText("Witaj Użytkowniku!");
+
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/chat", Map.of("message", "Ponów proszę"), Map.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).containsEntry("response", "Witaj Użytkowniku!");
+        assertThat(STUB.requests()).hasSize(2);
+    }
+
+    @Test
+    void persistentRateLimitingIsReportedAs429WithRetryAfter() {
+        STUB.enqueueError(429, "0").enqueueError(429, "0").enqueueError(429, "0");
+
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/chat", Map.of("message", "Limit"), Map.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(429);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("1");
+        assertThat((String) response.getBody().get("error")).contains("limit zapytań");
+        assertThat(STUB.requests()).hasSize(3);
+    }
+
+    @Test
+    void chatEndpointReturnsAsyncResponse() {
+        STUB.enqueueText("Witaj Użytkowniku!");
+
+        Map<?, ?> body = restTemplate.postForObject("/api/chat", Map.of("message", "Cześć"), Map.class);
+
+        assertThat(body).containsEntry("response", "Witaj Użytkowniku!");
+    }
+
+    @Test
+    void streamEndpointEmitsServerSentEvents() {
+        STUB.enqueueText("Witaj", " Użytkowniku!");
+
+        String body = restTemplate.postForObject("/api/chat/stream", Map.of("message", "Cześć"), String.class);
+
+        assertThat(body).contains("event:chunk", "Witaj", " Użytkowniku!", "event:done");
+    }
+
+    @Test
+    void batchEndpointAsksEachDistinctQuestionOnceAndStreamsNdjson() throws Exception {
+        STUB.enqueueText("Gotowe").enqueueText("Gotowe");
+
+        String body = restTemplate.postForObject("/api/chat/batch",
+                Map.of("messages", List.of("Ile mamy klientów?", "Ile zamówień?", "ile mamy klientów")), String.class);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.strip().split("\n")) {
+            lines.add(new ObjectMapper().readTree(line));
+        }
+        assertThat(lines).extracting(line -> line.get("index").asInt()).containsExactlyInAnyOrder(0, 1, 2);
+        assertThat(lines).allSatisfy(line -> assertThat(line.get("response").asText()).isEqualTo("Gotowe"));
+        JsonNode duplicate = lines.stream().filter(line -> line.get("index").asInt() == 2).findFirst().orElseThrow();
+        assertThat(duplicate.get("duplicateOf").asInt()).isZero();
+        assertThat(STUB.requests()).hasSize(2);
+    }
+
+    @Test
+    void batchEndpointRejectsEmptyQuestions() {
+        ResponseEntity<String> response = restTemplate.postForEntity("/api/chat/batch",
+                Map.of("messages", List.of("Ile mamy klientów?", " ")), String.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(400);
+        assertThat(response.getBody()).contains("nie mogą być puste");
+        assertThat(STUB.requests()).isEmpty();
+    }
+
+    @Test
+    void sessionSendsHistoryWithFollowUpsAndReusesToolResults() {
+        STUB.enqueueFunctionCalls("getClientCount").enqueueText("Mamy klientów.")
+                .enqueueFunctionCalls("getClientCount").enqueueText("Bez zmian.");
+        long reusesBefore = (long) chatSessionStore.stats().get("toolReuses");
+
+        Map<?, ?> first = restTemplate.postForObject("/api/chat",
+                Map.of("message", "Ilu mamy klientów?", "sessionId", "session-test"), Map.class);
+        Map<?, ?> second = restTemplate.postForObject("/api/chat",
+                Map.of("message", "A teraz?", "sessionId", "session-test"), Map.class);
+
+        assertThat(first).containsEntry("sessionId", "session-test");
+        assertThat(second).containsEntry("response", "Bez zmian.");
+        JsonNode followUpContents = STUB.requests().get(2).get("contents");
+        assertThat(followUpContents).hasSize(5);
+        assertThat(followUpContents.get(2).get("parts").get(0).has("functionResponse")).isTrue();
+        assertThat(followUpContents.get(3).get("parts").get(0).get("text").asText()).isEqualTo("Mamy klientów.");
+        assertThat(followUpContents.get(4).get("parts").get(0).get("text").asText()).isEqualTo("A teraz?");
+        assertThat((long) chatSessionStore.stats().get("toolReuses")).isEqualTo(reusesBefore + 1);
+    }
+
+    @Test
+    void chatEndpointReportsTimingBreakdownAndRecordsMetrics() {
+        STUB.enqueueFunctionCalls("getClientsRankedBySpending")
+                .enqueueText("Gotowe");
+
+        ResponseEntity<Map> response = restTemplate.postForEntity("/api/chat", Map.of("message", "Ranking klientów"), Map.class);
+
+        assertThat(response.getHeaders().getFirst("Server-Timing")).contains("llm;dur=", "tools;dur=", "db;dur=", "total;dur=");
+        assertThat(meterRegistry.get("gemini.requests").tag("phase", "initial").timer().count()).isPositive();
+        assertThat(meterRegistry.get("gemini.requests").tag("phase", "follow_up").timer().count()).isPositive();
+        assertThat(meterRegistry.get("tools.calls").tag("tool", "getClientsRankedBySpending").tag("outcome", "success")
+                .timer().count()).isPositive();
+        assertThat(meterRegistry.get("tools.db.statements").tag("tool", "getClientsRankedBySpending")
+                .summary().totalAmount()).isPositive();
+        assertThat(meterRegistry.get("tools.result.size").tag("tool", "getClientsRankedBySpending")
+                .summary().count()).isPositive();
+    }
+}
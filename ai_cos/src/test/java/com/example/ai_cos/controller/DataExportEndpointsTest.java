@@ -0,0 +1,131 @@
+package com.example.ai_cos.controller;
+
+import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.repository.OrderRepository;
+import com.example.ai_cos.service.DataGeneratorService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:data-export")
+class DataExportEndpointsTest {
+
+    private static final int CLIENTS = 10;
+    private static final int ORDERS = 7;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private DataGeneratorService dataGeneratorService;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void seed() {
+        while (clientRepository.count() < CLIENTS) {
+            dataGeneratorService.generateRandomClient();
+        }
+        while (orderRepository.count() < ORDERS) {
+            dataGeneratorService.generateRandomOrder();
+        }
+    }
+
+    @Test
+    void clientPagesContinueFromTheCursorUntilTheLastPage() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        long after = 0;
+        while (true) {
+            JsonNode page = get("/api/clients/page?limit=4&after=" + after);
+            page.get("items").forEach(item -> ids.add(item.get("id").asLong()));
+            pageSizes.add(page.get("items").size());
+            if (page.get("nextCursor").isNull()) {
+                break;
+            }
+            after = page.get("nextCursor").asLong();
+            assertThat(after).isEqualTo(ids.getLast());
+        }
+
+        assertThat(pageSizes).containsExactly(4, 4, 2);
+        assertThat(ids).hasSize(CLIENTS).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    void lastFullPageHasNoNextCursor() throws Exception {
+        JsonNode first = get("/api/clients/page?limit=5");
+        JsonNode second = get("/api/clients/page?limit=5&after=" + first.get("nextCursor").asLong());
+
+        assertThat(first.get("items")).hasSize(5);
+        assertThat(second.get("items")).hasSize(5);
+        assertThat(second.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void pageLimitIsClampedToItsBounds() throws Exception {
+        assertThat(get("/api/orders/page?limit=0").get("items")).hasSize(1);
+        assertThat(get("/api/orders/page?limit=-5").get("items")).hasSize(1);
+
+        JsonNode all = get("/api/orders/page?limit=100000");
+        assertThat(all.get("items")).hasSize(ORDERS);
+        assertThat(all.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void streamsWriteOneJsonObjectPerLine() throws Exception {
+        assertNdjson("/api/clients/stream", CLIENTS, "firstName");
+        assertNdjson("/api/orders/stream", ORDERS, "productName");
+    }
+
+    @Test
+    void ordersAreListedAsFlatRowsWithTheClientName() throws Exception {
+        JsonNode orders = get("/api/orders");
+
+        assertThat(orders).hasSize(ORDERS);
+        JsonNode order = orders.get(0);
+        assertThat(order.properties()).extracting(field -> field.getKey()).containsExactlyInAnyOrder(
+                "id", "productName", "quantity", "price", "status", "orderDate", "clientId", "clientName");
+        assertThat(order.get("clientName").asText()).contains(" ");
+        assertThat(order.get("clientId").isNumber()).isTrue();
+    }
+
+    private JsonNode get(String url) throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        return objectMapper.readTree(response.getBody());
+    }
+
+    private void assertNdjson(String url, int expectedRows, String field) throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+
+        assertThat(response.getHeaders().getContentType()).isNotNull();
+        assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_NDJSON)).isTrue();
+        assertThat(response.getBody()).endsWith("\n");
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines).hasSize(expectedRows);
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertThat(row.isObject()).isTrue();
+            assertThat(row.has("id")).isTrue();
+            assertThat(row.has(field)).isTrue();
+        }
+    }
+}
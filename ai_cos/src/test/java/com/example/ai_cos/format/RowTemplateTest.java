@@ -0,0 +1,121 @@
+package com.example.ai_cos.format;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RowTemplateTest {
+
+    private static final String PATTERN = "ID: %d, Produkt: %s, Ilość: %d, Cena: %.2f PLN, Data: %s, 100%%";
+
+    private record Row(Long id, String product, Integer quantity, BigDecimal price, LocalDate date) {
+    }
+
+    private static final RowTemplate<Row> TEMPLATE = RowTemplate.compile(PATTERN,
+            Row::id, Row::product, Row::quantity, Row::price, Row::date);
+
+    private final Locale originalLocale = Locale.getDefault(Locale.Category.FORMAT);
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(Locale.Category.FORMAT, originalLocale);
+    }
+
+    @Test
+    void matchesStringFormatForEdgeCaseDecimals() {
+        List<String> prices = List.of("0", "0.005", "0.004", "0.05", "1.995", "1.5", "12.34", "999.999", "-0.001",
+                "-1.5", "1E+3", "123456789012345678901234.565", "0.0000001", "50");
+        for (Locale locale : List.of(Locale.ROOT, Locale.US, Locale.forLanguageTag("pl-PL"), Locale.GERMANY)) {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+            for (String price : prices) {
+                assertSameAsStringFormat(new Row(7L, "Laptop", 2, new BigDecimal(price), LocalDate.of(2024, 1, 31)));
+            }
+        }
+    }
+
+    @Test
+    void matchesStringFormatForRandomRowsAndNulls() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextLong(1_000_000_000L), random.nextInt(6));
+            assertSameAsStringFormat(new Row(random.nextLong(Long.MAX_VALUE), "Produkt " + i, random.nextInt(),
+                    price, LocalDate.ofEpochDay(random.nextInt(30_000))));
+        }
+        assertSameAsStringFormat(new Row(null, null, null, null, null));
+    }
+
+    @Test
+    void linesAndRankingMatchJoinedFormatting() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            rows.add(new Row((long) i, "P" + i, i, BigDecimal.valueOf(i * 10 + 0.5), null));
+        }
+
+        StringBuilder joined = new StringBuilder("Nagłówek:\n");
+        StringBuilder ranked = new StringBuilder("Ranking:\n");
+        for (int i = 0; i < rows.size(); i++) {
+            joined.append(i == 0 ? "" : "\n").append(format(rows.get(i)));
+            ranked.append(String.format("%d. " + PATTERN + "\n", i + 1, rows.get(i).id(), rows.get(i).product(),
+                    rows.get(i).quantity(), rows.get(i).price(), rows.get(i).date()));
+        }
+
+        assertThat(RowFormatter.lines("Nagłówek:\n", rows, TEMPLATE)).isEqualTo(joined.toString());
+        assertThat(RowFormatter.ranking("Ranking:\n", rows, TEMPLATE)).isEqualTo(ranked.toString());
+        assertThat(RowFormatter.lines("", List.of(), TEMPLATE)).isEmpty();
+    }
+
+    @Test
+    void boundedRankingCountsFromTheFirstPositionAndStopsAtTheLimit() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            rows.add(new Row((long) i, "P" + i, i, BigDecimal.valueOf(i), null));
+        }
+        String first = "11. " + format(rows.get(0));
+        String second = "12. " + format(rows.get(1));
+
+        RowFormatter.Bounded bounded = RowFormatter.rankingWithin("R:\n", rows, TEMPLATE, 11,
+                "R:\n".length() + first.length() + 1 + second.length());
+
+        assertThat(bounded.rows()).isEqualTo(2);
+        assertThat(bounded.text()).isEqualTo("R:\n" + first + "\n" + second);
+    }
+
+    @Test
+    void rejectsUnsupportedPlaceholdersAndFieldCountMismatch() {
+        assertThatThrownBy(() -> RowTemplate.<Row>compile("%5d", Row::id)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RowTemplate.<Row>compile("%d %s", Row::id)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertSameAsStringFormat(Row row) {
+        assertThat(TEMPLATE.format(row)).isEqualTo(format(row));
+    }
+
+    @Test
+    void poolKeepsFewSmallBuilders() {
+        List<StringBuilder> borrowed = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            borrowed.add(RowFormatter.borrow(64));
+        }
+        StringBuilder huge = RowFormatter.borrow(1 << 20);
+        borrowed.forEach(RowFormatter::release);
+        RowFormatter.release(huge);
+
+        assertThat(RowFormatter.pooledBuilders()).isLessThanOrEqualTo(16);
+        for (int i = 0; i < 100; i++) {
+            assertThat(RowFormatter.borrow(0).capacity()).isLessThan(1 << 20);
+        }
+    }
+
+    private static String format(Row row) {
+        return String.format(PATTERN, row.id(), row.product(), row.quantity(), row.price(), row.date());
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.ai_cos.load;
+
+import com.example.ai_cos.AiCosApplication;
+import com.example.ai_cos.load.VirtualThreadLoadTest.LoadResult;
+import com.example.ai_cos.support.GeminiStubServer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives {@code /api/chat}, {@code /api/orders} and an MCP tool call over SSE at the same time,
+ * each at a fixed arrival rate, against a stubbed Gemini with log-normal latency, one tool round
+ * trip per chat and a few injected errors. Requests are sent on schedule whether or not earlier
+ * ones finished, and latency is measured from the scheduled send time, so a slow server shows
+ * up in p99 instead of lowering the offered load. Prints p50/p99/throughput per endpoint.
+ * Run with {@code ./gradlew loadTest --tests '*ArrivalRateLoadTest' -Pload.chat-rate=50}.
+ */
+@Tag("load")
+class ArrivalRateLoadTest {
+
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration-seconds", 20));
+    private static final int CHAT_RATE = Integer.getInteger("load.chat-rate", 20);
+    private static final int ORDERS_RATE = Integer.getInteger("load.orders-rate", 50);
+    private static final int MCP_RATE = Integer.getInteger("load.mcp-rate", 50);
+    private static final int MCP_SESSIONS = 4;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Sends request number {@code i} of a scenario; completes with whether it succeeded. */
+    @FunctionalInterface
+    interface Call {
+        CompletableFuture<Boolean> send(int i);
+    }
+
+    @Test
+    void endpointsKeepUpWithFixedArrivalRates() throws Exception {
+        try (GeminiStubServer stub = GeminiStubServer.start()
+                .withLatency(GeminiStubServer.Latency.logNormal(Duration.ofMillis(400), Duration.ofSeconds(2)))
+                .withDefaultFunctionCall("getClientCount")
+                .withErrorRate(0.01, 503);
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(AiCosApplication.class)
+                     .properties(
+                             "server.port=0",
+                             "gemini.api.key=load-test",
+                             "gemini.base-url=" + stub.baseUrl(),
+                             // pinned, so the stub's latency tail does not throttle what is measured here
+                             "gemini.limiter.initial-limit=512",
+                             "gemini.limiter.min-limit=512",
+                             "gemini.limiter.max-limit=512",
+                             "chat.cache.enabled=false",
+                             "spring.datasource.url=jdbc:h2:mem:load-arrival-rate")
+                     .run();
+             HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+
+            String base = "http://localhost:" + context.getEnvironment().getRequiredProperty("local.server.port");
+            seed(client, base);
+
+            List<McpSession> sessions = new ArrayList<>();
+            try (ExecutorService drivers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < MCP_SESSIONS; i++) {
+                    sessions.add(McpSession.open(client, base));
+                }
+                List<CompletableFuture<LoadResult>> scenarios = List.of(
+                        drive("chat", CHAT_RATE, i -> chat(client, base, i), drivers),
+                        drive("orders", ORDERS_RATE, i -> get(client, base + "/api/orders"), drivers),
+                        drive("mcp", MCP_RATE, i -> sessions.get(i % sessions.size()).callTool("getClientCount"), drivers));
+
+                for (CompletableFuture<LoadResult> scenario : scenarios) {
+                    LoadResult result = scenario.join();
+                    System.out.println(result);
+                    assertThat(result.failures()).isLessThanOrEqualTo(result.requests() / 100);
+                }
+            } finally {
+                sessions.forEach(McpSession::close);
+            }
+        }
+    }
+
+    /** Sends {@code rate} requests per second for {@link #DURATION} and waits for all of them. */
+    private static CompletableFuture<LoadResult> drive(String name, int rate, Call call, ExecutorService executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            int requests = (int) (rate * DURATION.toSeconds());
+            long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+            long start = System.nanoTime();
+            List<CompletableFuture<Long>> latencies = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                long scheduled = start + i * interval;
+                LockSupport.parkNanos(scheduled - System.nanoTime());
+                CompletableFuture<Boolean> sent;
+                try {
+                    sent = call.send(i);
+                } catch (RuntimeException e) {
+                    sent = CompletableFuture.failedFuture(e);
+                }
+                latencies.add(sent
+                        .thenApply(ok -> ok ? (System.nanoTime() - scheduled) / 1_000_000 : -1L)
+                        .exceptionally(e -> -1L));
+            }
+            CompletableFuture.allOf(latencies.toArray(CompletableFuture[]::new)).join();
+            long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+            long[] sorted = latencies.stream().mapToLong(CompletableFuture::join).filter(l -> l >= 0).sorted().toArray();
+            return new LoadResult(name, requests, requests - sorted.length, wallMillis,
+                    VirtualThreadLoadTest.percentile(sorted, 0.50), VirtualThreadLoadTest.percentile(sorted, 0.99));
+        }, executor);
+    }
+
+    private static CompletableFuture<Boolean> chat(HttpClient client, String base, int i) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/chat"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"Ilu mamy klientów? (" + i + ")\"}"))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> response.statusCode() == 200 && response.body().contains("\"response\":\"OK\""));
+    }
+
+    private static CompletableFuture<Boolean> get(HttpClient client, String url) {
+        return client.sendAsync(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200);
+    }
+
+    /** Generates clients and orders through {@code /api/generate} and waits for the job to finish. */
+    private static void seed(HttpClient client, String base) throws Exception {
+        HttpRequest start = HttpRequest.newBuilder(URI.create(base + "/api/generate?clients=2000&orders=2000"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        String jobId = MAPPER.readTree(client.send(start, HttpResponse.BodyHandlers.ofString()).body()).get("id").asText();
+        HttpRequest status = HttpRequest.newBuilder(URI.create(base + "/api/generate/" + jobId)).GET().build();
+        for (int attempt = 0; attempt < 600; attempt++) {
+            String state = MAPPER.readTree(client.send(status, HttpResponse.BodyHandlers.ofString()).body()).get("state").asText();
+            if (!"RUNNING".equals(state)) {
+                assertThat(state).isEqualTo("COMPLETED");
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Data generation did not finish");
+    }
+
+    /**
+     * A minimal MCP client over the SSE transport: the server announces where to post JSON-RPC
+     * messages in an {@code endpoint} event and sends the responses back as {@code message} events.
+     */
+    private static final class McpSession implements AutoCloseable {
+
+        private final HttpClient client;
+        private final URI sse;
+        private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+        private final CompletableFuture<URI> endpoint = new CompletableFuture<>();
+        private Stream<String> lines;
+        private String event;
+
+        private McpSession(HttpClient client, URI sse) {
+            this.client = client;
+            this.sse = sse;
+        }
+
+        static McpSession open(HttpClient client, String base) throws Exception {
+            McpSession session = new McpSession(client, URI.create(base + "/sse"));
+            HttpRequest request = HttpRequest.newBuilder(session.sse).header("Accept", "text/event-stream").GET().build();
+            session.lines = client.send(request, HttpResponse.BodyHandlers.ofLines()).body();
+            Thread.ofVirtual().start(() -> {
+                try {
+                    session.lines.forEach(session::onLine);
+                } catch (UncheckedIOException | IllegalStateException closed) {
+                    // the stream was closed by close()
+                }
+            });
+            session.request("initialize", Map.of(
+                    "protocolVersion", "2024-11-05",
+                    "capabilities", Map.of(),
+                    "clientInfo", Map.of("name", "load-test", "version", "1.0"))).get(10, TimeUnit.SECONDS);
+            session.post(Map.of("jsonrpc", "2.0", "method", "notifications/initialized")).get(10, TimeUnit.SECONDS);
+            return session;
+        }
+
+        CompletableFuture<Boolean> callTool(String name) {
+            return request("tools/call", Map.of("name", name, "arguments", Map.of()))
+                    .thenApply(response -> !response.has("error") && !response.path("result").path("isError").asBoolean());
+        }
+
+        private CompletableFuture<JsonNode> request(String method, Map<String, ?> params) {
+            long id = ids.incrementAndGet();
+            CompletableFuture<JsonNode> response = new CompletableFuture<>();
+            pending.put(id, response);
+            post(Map.of("jsonrpc", "2.0", "id", id, "method", method, "params", params))
+                    .whenComplete((ignored, error) -> {
+                        if (error != null) {
+                            pending.remove(id);
+                            response.completeExceptionally(error);
+                        }
+                    });
+            return response;
+        }
+
+        private CompletableFuture<Void> post(Map<String, ?> message) {
+            String json;
+            try {
+                json = MAPPER.writeValueAsString(message);
+            } catch (JsonProcessingException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return endpoint.thenCompose(uri -> client.sendAsync(HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(json))
+                            .build(), HttpResponse.BodyHandlers.discarding()))
+                    .thenAccept(response -> {
+                        if (response.statusCode() >= 300) {
+                            throw new IllegalStateException("MCP message rejected with " + response.statusCode());
+                        }
+                    });
+        }
+
+        private void onLine(String line) {
+            if (line.startsWith("event:")) {
+                event = line.substring("event:".length()).strip();
+            } else if (line.startsWith("data:")) {
+                String data = line.substring("data:".length()).strip();
+                if ("endpoint".equals(event)) {
+                    endpoint.complete(sse.resolve(data));
+                    return;
+                }
+                try {
+                    JsonNode message = MAPPER.readTree(data);
+                    CompletableFuture<JsonNode> waiting = pending.remove(message.path("id").asLong());
+                    if (waiting != null) {
+                        waiting.complete(message);
+                    }
+                } catch (JsonProcessingException e) {
+                    // not a JSON-RPC message
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            lines.close();
+        }
+    }
+}
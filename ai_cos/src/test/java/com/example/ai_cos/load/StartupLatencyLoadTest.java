@@ -0,0 +1,119 @@
+package com.example.ai_cos.load;
+
+import com.example.ai_cos.AiCosApplication;
+import com.example.ai_cos.config.StartupWarmup;
+import com.example.ai_cos.dto.GenerationStatus;
+import com.example.ai_cos.service.BulkDataGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Startup time and first tool query latency with a large dataset, in memory and with the
+ * {@code persistent} profile, with and without warm-up. The in-memory database is empty on every
+ * start, so there the data is seeded after startup and the first query pays for the rebuild;
+ * the file database is seeded once and the context restarted over it.
+ * Run with {@code ./gradlew loadTest -Pload.startup-orders=1000000}.
+ */
+@Tag("load")
+class StartupLatencyLoadTest {
+
+    private static final int ORDERS = Integer.getInteger("load.startup-orders", 1_000_000);
+
+    record StartupResult(String mode, long seedMillis, Map<String, Object> report, long firstQueryMillis,
+                         long secondQueryMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%-22s seed=%d ms first query=%d ms second query=%d ms report=%s",
+                    mode, seedMillis, firstQueryMillis, secondQueryMillis, report);
+        }
+    }
+
+    @Test
+    void reportsStartupAndFirstQueryLatency(@TempDir Path dataDir) throws Exception {
+        List<StartupResult> results = new ArrayList<>();
+        results.add(inMemory());
+
+        String[] persistent = {
+                "spring.profiles.active=persistent",
+                "H2_DATA_DIR=" + dataDir};
+        try (ConfigurableApplicationContext context = start(persistent, "app.warmup.enabled=false")) {
+            seed(context);
+        }
+        results.add(restart("persistent, warm-up", persistent, "app.warmup.enabled=true"));
+        results.add(restart("persistent, no warm-up", persistent, "app.warmup.enabled=false"));
+
+        results.forEach(System.out::println);
+        assertThat(results).allSatisfy(result -> assertThat(result.report()).containsKey("firstQuery"));
+    }
+
+    private StartupResult inMemory() throws InterruptedException {
+        try (ConfigurableApplicationContext context = start(new String[]{
+                "spring.datasource.url=jdbc:h2:mem:startup-load"}, "app.warmup.enabled=true")) {
+            long seedMillis = seed(context);
+            return measure("in-memory", context, seedMillis);
+        }
+    }
+
+    private StartupResult restart(String mode, String[] profile, String warmup) {
+        try (ConfigurableApplicationContext context = start(profile, warmup)) {
+            return measure(mode, context, 0);
+        }
+    }
+
+    private StartupResult measure(String mode, ConfigurableApplicationContext context, long seedMillis) {
+        ToolCallback summary = Arrays.stream(context.getBean("databaseToolCallbacks", ToolCallbackProvider.class)
+                        .getToolCallbacks())
+                .filter(callback -> callback.getToolDefinition().name().equals("getDatabaseSummary"))
+                .findFirst().orElseThrow();
+        long first = timeMillis(() -> summary.call("{}"));
+        long second = timeMillis(() -> summary.call("{}"));
+        return new StartupResult(mode, seedMillis, context.getBean(StartupWarmup.class).report(), first, second);
+    }
+
+    private static ConfigurableApplicationContext start(String[] mode, String warmup) {
+        List<String> properties = new ArrayList<>(Arrays.asList(mode));
+        properties.add(warmup);
+        properties.add("tools.cache.enabled=false");
+        properties.add("spring.jpa.show-sql=false");
+        properties.add("logging.level.root=WARN");
+        return new SpringApplicationBuilder(AiCosApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(String[]::new))
+                .run();
+    }
+
+    private static long seed(ConfigurableApplicationContext context) throws InterruptedException {
+        BulkDataGenerator generator = context.getBean(BulkDataGenerator.class);
+        String jobId = generator.start(Math.max(1, ORDERS / 10), ORDERS).id();
+        GenerationStatus status = generator.status(jobId).orElseThrow();
+        while (status.state() == GenerationStatus.State.RUNNING) {
+            Thread.sleep(50);
+            status = generator.status(jobId).orElseThrow();
+        }
+        if (status.state() != GenerationStatus.State.COMPLETED) {
+            throw new IllegalStateException("Seeding failed: " + status.error());
+        }
+        return status.elapsedMs();
+    }
+
+    private static long timeMillis(Runnable call) {
+        long start = System.nanoTime();
+        call.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.ai_cos.load;
+
+import com.example.ai_cos.AiCosApplication;
+import com.example.ai_cos.support.GeminiStubServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sustained concurrent streaming chats against a stubbed Gemini upstream, once with a
+ * platform thread pool and once with virtual threads. Streaming chats hold a worker thread
+ * for the whole LLM call, so the pool size caps platform-thread throughput.
+ * Run with {@code ./gradlew loadTest}.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENT_CHATS = 400;
+    private static final int PLATFORM_THREADS = 50;
+    private static final Duration LLM_LATENCY = Duration.ofMillis(300);
+
+    record LoadResult(String mode, int requests, long failures, long wallMillis, long p50Millis, long p99Millis) {
+
+        double throughput() {
+            return requests * 1000.0 / wallMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s requests=%d failures=%d wall=%d ms p50=%d ms p99=%d ms throughput=%.1f req/s",
+                    mode, requests, failures, wallMillis, p50Millis, p99Millis, throughput());
+        }
+    }
+
+    @Test
+    void virtualThreadsSustainConcurrentChats() throws Exception {
+        try (GeminiStubServer stub = GeminiStubServer.start().withLatency(LLM_LATENCY)) {
+            LoadResult platform = run(stub, false);
+            LoadResult virtual = run(stub, true);
+
+            System.out.println(platform);
+            System.out.println(virtual);
+
+            assertThat(platform.failures()).isZero();
+            assertThat(virtual.failures()).isZero();
+            assertThat(virtual.wallMillis()).isLessThan(platform.wallMillis());
+        }
+    }
+
+    private LoadResult run(GeminiStubServer stub, boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AiCosApplication.class)
+                .properties(
+                        "server.port=0",
+                        "gemini.api.key=load-test",
+                        "gemini.base-url=" + stub.baseUrl(),
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + PLATFORM_THREADS,
+                        "app.threads.platform-pool-size=" + PLATFORM_THREADS,
+                        "gemini.limiter.initial-limit=" + CONCURRENT_CHATS,
+                        "gemini.limiter.max-limit=" + CONCURRENT_CHATS,
+                        "spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                        "spring.jpa.show-sql=false")
+                .run();
+             HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            URI uri = URI.create("http://localhost:" + port + "/api/chat/stream");
+
+            long start = System.nanoTime();
+            List<CompletableFuture<Long>> latencies = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_CHATS; i++) {
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"message\":\"Ilu mamy klientów?\"}"))
+                        .build();
+                long sent = System.nanoTime();
+                latencies.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                        .thenApply(response -> response.statusCode() == 200 && response.body().contains("event:done")
+                                ? (System.nanoTime() - sent) / 1_000_000
+                                : -1L)
+                        .exceptionally(e -> -1L));
+            }
+            CompletableFuture.allOf(latencies.toArray(CompletableFuture[]::new)).join();
+            long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+            long[] sorted = latencies.stream().mapToLong(CompletableFuture::join).filter(l -> l >= 0).sorted().toArray();
+            long failures = CONCURRENT_CHATS - sorted.length;
+            return new LoadResult(virtualThreads ? "virtual" : "platform", CONCURRENT_CHATS, failures, wallMillis,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99));
+        }
+    }
+
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.ai_cos.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryProfilerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryProfiler profiler = new QueryProfiler(true, 1.0, 3, 64, registry);
+
+    @Test
+    void fingerprintCollapsesLiteralsWhitespaceAndValueLists() {
+        assertThat(QueryProfiler.normalize("select c1_0.id from clients c1_0\n  where c1_0.email = 'a''b@x.pl' and c1_0.id in (?, ?,?) limit 10"))
+                .isEqualTo("select c1_0.id from clients c1_0 where c1_0.email = ? and c1_0.id in (?...) limit ?");
+    }
+
+    @Test
+    void flagsStatementRepeatedAboveThresholdWithinOneScope() {
+        try (QueryTimingScope ignored = QueryTimingScope.open("GET /api/orders")) {
+            for (int i = 0; i < 6; i++) {
+                profiler.onStatement("select * from clients where id=?", 1_000);
+            }
+            profiler.onStatement("select count(*) from orders", 1_000);
+        }
+
+        List<?> detections = (List<?>) profiler.report(10).get("nPlusOne");
+        assertThat(detections).hasSize(1);
+        QueryProfiler.NPlusOne detection = (QueryProfiler.NPlusOne) detections.get(0);
+        assertThat(detection.context()).isEqualTo("GET /api/orders");
+        assertThat(detection.fingerprint()).isEqualTo("select * from clients where id=?");
+        assertThat(registry.get("db.n_plus_one").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void repeatsFromScopesOpenedOnOtherThreadsAddUpInTheRequestScope() throws Exception {
+        try (QueryTimingScope request = QueryTimingScope.open("POST /api/chat")) {
+            Thread[] tools = new Thread[2];
+            for (int t = 0; t < tools.length; t++) {
+                tools[t] = Thread.ofPlatform().start(() -> {
+                    try (QueryTimingScope ignored = QueryTimingScope.open(request, "tool getOrders")) {
+                        for (int i = 0; i < 2; i++) {
+                            profiler.onStatement("select * from orders where client_id=?", 1_000);
+                        }
+                    }
+                });
+            }
+            for (Thread tool : tools) {
+                tool.join();
+            }
+
+            assertThat(request.statements()).isEqualTo(4);
+            assertThat(request.nanos()).isEqualTo(4_000);
+            assertThat(QueryTimingScope.current()).isSameAs(request);
+        }
+
+        List<?> detections = (List<?>) profiler.report(10).get("nPlusOne");
+        assertThat(detections).hasSize(1);
+        assertThat(((QueryProfiler.NPlusOne) detections.get(0)).context()).isEqualTo("tool getOrders");
+    }
+
+    @Test
+    void disabledProfilerStillTimesStatementsIntoScopes() {
+        QueryProfiler disabled = new QueryProfiler(false, 1.0, 3, 64, registry);
+        try (QueryTimingScope scope = QueryTimingScope.open("GET /api/orders")) {
+            for (int i = 0; i < 6; i++) {
+                assertThat(disabled.onStatement("select * from clients where id=?", 1_000)).isFalse();
+            }
+
+            assertThat(scope.statements()).isEqualTo(6);
+            assertThat(scope.nanos()).isEqualTo(6_000);
+        }
+        assertThat((List<?>) disabled.report(10).get("nPlusOne")).isEmpty();
+    }
+
+    @Test
+    void statementsOutsideScopeAreNotCountedAsRepeats() {
+        for (int i = 0; i < 6; i++) {
+            profiler.onStatement("select * from clients where id=?", 1_000);
+        }
+
+        assertThat((List<?>) profiler.report(10).get("nPlusOne")).isEmpty();
+    }
+
+    @Test
+    void reportRanksFingerprintsByTotalTime() {
+        profiler.addSample("select * from orders where id = 1", 2_000_000, 1);
+        profiler.addSample("select * from orders where id = 2", 2_000_000, 1);
+        profiler.addSample("select * from clients", 3_000_000, 50);
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> top = (List<Map<String, Object>>) profiler.report(10).get("top");
+
+        assertThat(top).extracting(statement -> statement.get("fingerprint"))
+                .containsExactly("select * from orders where id = ?", "select * from clients");
+        assertThat(top.get(0)).containsEntry("samples", 2L).containsEntry("totalMs", 4.0);
+        assertThat(top.get(1)).containsEntry("avgRows", 50.0);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ai_cos.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    @Test
+    void foldsPolishDiacriticsAndCase() {
+        assertThat(TextNormalizer.normalize("  Łukasz ŻÓŁĆ Wiśniewski ")).isEqualTo("lukasz zolc wisniewski");
+        assertThat(TextNormalizer.normalize("Dysk SSD")).isEqualTo("dysk ssd");
+        assertThat(TextNormalizer.normalize(null)).isNull();
+    }
+
+    @Test
+    void prefixUpperBoundSortsAfterEveryExtension() {
+        String upper = TextNormalizer.prefixUpperBound("kow");
+
+        assertThat("kowalski").isGreaterThanOrEqualTo("kow").isLessThan(upper);
+        assertThat("kox").isGreaterThan(upper);
+    }
+}
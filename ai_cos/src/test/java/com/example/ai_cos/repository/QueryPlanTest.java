@@ -0,0 +1,139 @@
+package com.example.ai_cos.repository;
+
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.model.OrderStatus;
+import com.example.ai_cos.model.TextNormalizer;
+import com.example.ai_cos.service.DataGeneratorService;
+import com.example.ai_cos.support.CapturedSql;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks H2's EXPLAIN output for the SQL Hibernate generates for the hot repository lookups, so
+ * a dropped index or a predicate that defeats it shows up as a table scan.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-plan",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.ai_cos.support.CapturedSql"})
+class QueryPlanTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DataGeneratorService dataGeneratorService;
+
+    @BeforeEach
+    void seed() {
+        if (orderRepository.count() == 0) {
+            for (int i = 0; i < 50; i++) {
+                dataGeneratorService.generateRandomClient();
+            }
+            for (int i = 0; i < 200; i++) {
+                dataGeneratorService.generateRandomOrder();
+            }
+        }
+    }
+
+    @Test
+    void ordersByClientUseIndex() {
+        assertIndexUsed(() -> orderRepository.findByClientId(1L), "IDX_ORDERS_CLIENT_ID", 1L);
+        assertIndexUsed(() -> orderRepository.getTotalSpentByClient(1L), "IDX_ORDERS_CLIENT_ID", 1L);
+        assertIndexUsed(() -> orderRepository.countOrdersByClient(1L), "IDX_ORDERS_CLIENT_ID", 1L);
+    }
+
+    @Test
+    void ordersByStatusUseIndex() {
+        assertIndexUsed(() -> orderRepository.findByStatus(OrderStatus.NEW, PageRequest.of(0, 10)),
+                "IDX_ORDERS_STATUS", OrderStatus.NEW.name());
+    }
+
+    @Test
+    void ordersByDateRangeUseIndex() {
+        assertIndexUsed("SELECT * FROM orders WHERE order_date >= DATEADD('DAY', -7, CURRENT_TIMESTAMP)",
+                "IDX_ORDERS_ORDER_DATE");
+    }
+
+    @Test
+    void prefixSearchesUseNormalizedIndexes() {
+        String upperBound = TextNormalizer.prefixUpperBound("kow");
+        assertIndexUsed(() -> clientRepository.findByLastNameNormRange("kow", upperBound),
+                "IDX_CLIENTS_LAST_NAME_NORM", "kow", upperBound);
+        assertIndexUsed(() -> clientRepository.findByFirstNameNormRange("kow", upperBound),
+                "IDX_CLIENTS_FIRST_NAME_NORM", "kow", upperBound);
+        assertIndexUsed(() -> orderRepository.findByProductNameNormRange("kow", upperBound),
+                "IDX_ORDERS_PRODUCT_NAME_NORM", "kow", upperBound);
+    }
+
+    @Test
+    void searchByNameMatchesPrefixWithoutDiacriticsAndFallsBackToSubstring() {
+        Client client = clientRepository.save(new Client("Łucja", "Żółkiewska", "lucja.zolkiewska@email.pl", "+48111222333"));
+
+        assertThat(clientRepository.searchByName("zolk")).extracting(Client::getId).contains(client.getId());
+        assertThat(clientRepository.searchByName("ŁUC")).extracting(Client::getId).contains(client.getId());
+        assertThat(clientRepository.searchByName("kiews")).extracting(Client::getId).contains(client.getId());
+    }
+
+    @Test
+    void searchByNameScansForSubstringsOnlyWithoutPrefixMatches() {
+        Client prefix = clientRepository.save(new Client("Skiba", "Nowak", "skiba.nowak@email.pl", "+48111222334"));
+        Client substring = clientRepository.save(new Client("Jan", "Kowalski", "jan.kowalski@email.pl", "+48111222335"));
+
+        CapturedSql.clear();
+        List<Long> ids = clientRepository.searchByName("skib").stream().map(Client::getId).toList();
+        assertThat(ids).contains(prefix.getId()).doesNotContain(substring.getId());
+        assertThat(CapturedSql.all()).hasSize(2).noneMatch(sql -> sql.contains(" like "));
+
+        assertThat(clientRepository.searchByName("walsk")).extracting(Client::getId).contains(substring.getId());
+    }
+
+    @Test
+    void searchByProductNameMatchesPrefixAndSubstring() {
+        Client client = clientRepository.findAll().get(0);
+        orderRepository.save(new Order("Słuchawki", 1, BigDecimal.TEN, client));
+        orderRepository.save(new Order("Dysk SSD", 1, BigDecimal.TEN, client));
+
+        assertThat(orderRepository.searchByProductName("SLUCH"))
+                .isNotEmpty()
+                .allSatisfy(order -> assertThat(order.getProductName()).isEqualTo("Słuchawki"));
+        assertThat(orderRepository.searchByProductName("ssd"))
+                .isNotEmpty()
+                .allSatisfy(order -> assertThat(order.getProductName()).isEqualTo("Dysk SSD"));
+    }
+
+    /** Runs {@code query}, then checks the plan of the first statement Hibernate prepared for it. */
+    private void assertIndexUsed(Runnable query, String indexName, Object... args) {
+        CapturedSql.clear();
+        query.run();
+        assertIndexUsed(CapturedSql.first(), indexName, args);
+    }
+
+    /** Parameters after {@code args} are page bounds and get a small number. */
+    private void assertIndexUsed(String sql, String indexName, Object... args) {
+        List<String> plan = jdbcTemplate.query("EXPLAIN " + sql, statement -> {
+            int count = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= count; i++) {
+                statement.setObject(i, i <= args.length ? args[i - 1] : 10);
+            }
+        }, (row, rowNum) -> row.getString(1));
+        String text = String.join("\n", plan);
+
+        assertThat(text).doesNotContain("tableScan").contains(indexName);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.ai_cos.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveLimiterTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void callersOverTheLimitWaitForAReleasedSlot() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 10, 0.5, 2.0);
+        AdaptiveLimiter.Permit first = limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join();
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join();
+
+        CompletableFuture<AdaptiveLimiter.Permit> third = limiter.acquire(deadlineIn(Duration.ofSeconds(5)));
+        assertThat(third).isNotDone();
+        assertThat(limiter.queued()).isEqualTo(1);
+
+        first.release(10 * MS, AdaptiveLimiter.Outcome.SUCCESS);
+
+        assertThat(third).isCompleted();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void fullQueueShedsImmediately() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 10, 1, 0.5, 2.0);
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join();
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5)));
+
+        assertThatThrownBy(() -> limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join())
+                .hasCauseInstanceOf(UpstreamUnavailableException.class)
+                .satisfies(e -> assertThat(((UpstreamUnavailableException) e.getCause()).getReason())
+                        .isEqualTo(UpstreamUnavailableException.Reason.QUEUE_FULL));
+    }
+
+    @Test
+    void callerIsShedWhenItsDeadlineCannotBeMet() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 10, 0.5, 2.0);
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join().release(200 * MS, AdaptiveLimiter.Outcome.SUCCESS);
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join();
+
+        CompletableFuture<AdaptiveLimiter.Permit> hopeless = limiter.acquire(deadlineIn(Duration.ofMillis(100)));
+
+        assertThat(hopeless).isCompletedExceptionally();
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void queuedCallerLeavesWhenItsDeadlinePasses() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 10, 10, 0.5, 2.0);
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join();
+
+        CompletableFuture<AdaptiveLimiter.Permit> waiting = limiter.acquire(deadlineIn(Duration.ofMillis(50)));
+
+        assertThatThrownBy(() -> waiting.get(2, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(UpstreamUnavailableException.class);
+        assertThat(limiter.queued()).isZero();
+    }
+
+    @Test
+    void limitShrinksOnDropsAndGrowsBackWhileBusy() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 16, 10, 0.5, 2.0);
+
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join().release(10 * MS, AdaptiveLimiter.Outcome.DROPPED);
+        assertThat(limiter.limit()).isEqualTo(4);
+
+        for (int round = 0; round < 20; round++) {
+            AdaptiveLimiter.Permit[] permits = new AdaptiveLimiter.Permit[limiter.limit()];
+            for (int i = 0; i < permits.length; i++) {
+                permits[i] = limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join();
+            }
+            for (AdaptiveLimiter.Permit permit : permits) {
+                permit.release(10 * MS, AdaptiveLimiter.Outcome.SUCCESS);
+            }
+        }
+        assertThat(limiter.limit()).isGreaterThan(8);
+    }
+
+    @Test
+    void risingLatencyShrinksTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 16, 10, 0.5, 2.0);
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join().release(10 * MS, AdaptiveLimiter.Outcome.SUCCESS);
+        }
+
+        limiter.acquire(deadlineIn(Duration.ofSeconds(5))).join().release(500 * MS, AdaptiveLimiter.Outcome.SUCCESS);
+
+        assertThat(limiter.limit()).isLessThan(8);
+    }
+
+    private static long deadlineIn(Duration duration) {
+        return System.nanoTime() + duration.toNanos();
+    }
+}
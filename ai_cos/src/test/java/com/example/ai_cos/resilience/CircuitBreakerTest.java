@@ -0,0 +1,91 @@
+package com.example.ai_cos.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, Duration.ofSeconds(30), now::get);
+
+    @Test
+    void staysClosedUntilEnoughCallsFail() {
+        call(false);
+        call(true);
+        call(true);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        call(false);
+        call(true);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void openBreakerRejectsUntilTheProbeSucceeds() {
+        tripOpen();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThatThrownBy(breaker::acquire)
+                .isInstanceOfSatisfying(UpstreamUnavailableException.class, e -> {
+                    assertThat(e.getReason()).isEqualTo(UpstreamUnavailableException.Reason.CIRCUIT_OPEN);
+                    assertThat(e.retryAfterSeconds()).isEqualTo(20);
+                    assertThat(e.httpStatus()).isEqualTo(503);
+                });
+
+        now.addAndGet(Duration.ofSeconds(20).toNanos());
+        breaker.acquire();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(UpstreamUnavailableException.class);
+
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        call(true);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void failedProbeReopens() {
+        tripOpen();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        breaker.acquire();
+        breaker.onFailure();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(breaker::acquire).isInstanceOf(UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void ignoredProbeLetsTheNextCallProbe() {
+        tripOpen();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        breaker.acquire();
+        breaker.onIgnored();
+        breaker.acquire();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    private void tripOpen() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void call(boolean fails) {
+        breaker.acquire();
+        if (fails) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.ai_cos.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    @Test
+    void matchesWithoutDiacriticsAndRanksExactMatchesFirst() {
+        index.put(1, "Jan Wiśniewski");
+        index.put(2, "Anna Wiśniewska");
+        index.put(3, "Piotr Nowak");
+
+        assertThat(index.search("Wisniewski", 10, 0.5))
+                .extracting(TrigramIndex.Match::docId)
+                .containsExactly(1, 2);
+        assertThat(index.search("Wisniewski", 10, 0.5).get(0).score()).isEqualTo(1.0);
+    }
+
+    @Test
+    void toleratesMisspellings() {
+        index.put(7, "Krzysztof Kowalski");
+        index.put(8, "Tomasz Mazur");
+
+        assertThat(index.search("kowalsky", 10, 0.5)).extracting(TrigramIndex.Match::docId).containsExactly(7);
+        assertThat(index.search("krzystof", 10, 0.5)).extracting(TrigramIndex.Match::docId).containsExactly(7);
+    }
+
+    @Test
+    void updatesAndRemovalsReplacePostings() {
+        index.put(1, "Ewa Nowak");
+        index.put(1, "Ewa Mazur");
+
+        assertThat(index.search("nowak", 10, 0.5)).isEmpty();
+        assertThat(index.search("mazur", 10, 0.5)).extracting(TrigramIndex.Match::docId).containsExactly(1);
+
+        index.remove(1);
+
+        assertThat(index.search("mazur", 10, 0.5)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void limitKeepsBestMatches() {
+        for (int id = 0; id < 100; id++) {
+            index.put(id, id == 42 ? "Laptop" : "Laptop Pro " + id);
+        }
+
+        assertThat(index.search("laptop", 3, 0.5))
+                .extracting(TrigramIndex.Match::docId)
+                .containsExactly(42, 0, 1);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.event.EntityChangedEvent;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AnalyticsViewTest {
+
+    @Autowired
+    private AnalyticsView analyticsView;
+
+    @Autowired
+    private DataGeneratorService dataGeneratorService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DataVersion dataVersion;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ListenerOrderProbe listenerOrderProbe;
+
+    /** Sees each insert between the view and the caches, so it must find the view already updated. */
+    @TestConfiguration
+    static class ListenerOrderProbe {
+
+        @Autowired
+        private AnalyticsView analyticsView;
+
+        @Autowired
+        private DataVersion dataVersion;
+
+        final List<String> seen = new CopyOnWriteArrayList<>();
+        volatile boolean recording;
+
+        @TransactionalEventListener(fallbackExecution = true)
+        @org.springframework.core.annotation.Order(0)
+        public void onEntityChanged(EntityChangedEvent event) {
+            if (recording && event.entity() instanceof Order) {
+                seen.add(analyticsView.getSummary().orderCount() + "@" + dataVersion.current());
+            }
+        }
+    }
+
+    @Test
+    void incrementalUpdatesMatchFullRecount() {
+        analyticsView.getSummary();
+        for (int i = 0; i < 10; i++) {
+            dataGeneratorService.generateRandomClient();
+        }
+        for (int i = 0; i < 200; i++) {
+            dataGeneratorService.generateRandomOrder();
+        }
+
+        assertThat(analyticsView.verifyAgainstDatabase()).isEmpty();
+    }
+
+    @Test
+    void viewAppliesAnInsertBeforeTheCachesMoveOn() {
+        dataGeneratorService.generateRandomClient();
+        long orders = analyticsView.getSummary().orderCount();
+        long version = dataVersion.current();
+        listenerOrderProbe.seen.clear();
+        listenerOrderProbe.recording = true;
+        try {
+            dataGeneratorService.generateRandomOrder();
+        } finally {
+            listenerOrderProbe.recording = false;
+        }
+
+        assertThat(listenerOrderProbe.seen).containsExactly((orders + 1) + "@" + version);
+        assertThat(dataVersion.current()).isGreaterThan(version);
+    }
+
+    @Test
+    void updateMarksViewStaleAndRebuilds() {
+        Order order = dataGeneratorService.generateRandomOrder();
+        order.setQuantity(order.getQuantity() + 3);
+        orderRepository.save(order);
+
+        assertThat(analyticsView.verifyAgainstDatabase()).isEmpty();
+    }
+
+    @Test
+    void writesCommittedDuringRebuildsAreNeitherLostNorCountedTwice() {
+        for (int i = 0; i < 5; i++) {
+            dataGeneratorService.generateRandomClient();
+        }
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 300; i++) {
+                Order order = dataGeneratorService.generateRandomOrder();
+                if (i % 50 == 0) {
+                    order.setQuantity(order.getQuantity() + 1);
+                    orderRepository.save(order);
+                }
+            }
+        });
+        while (!writer.isDone()) {
+            analyticsView.invalidate();
+            analyticsView.getSummary();
+        }
+        writer.join();
+
+        assertThat(analyticsView.verifyAgainstDatabase()).isEmpty();
+    }
+
+    @Test
+    void orderCommittedAfterRebuildWithLowerIdIsCounted() throws Exception {
+        dataGeneratorService.generateRandomClient();
+        analyticsView.getSummary();
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CompletableFuture<Long> slowWriter = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+            Order order = dataGeneratorService.generateRandomOrder();
+            inserted.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return order.getId();
+        }));
+        inserted.await();
+        CompletableFuture<Long> fastWriter = CompletableFuture.supplyAsync(
+                () -> dataGeneratorService.generateRandomOrder().getId());
+        long fastId = fastWriter.join();
+
+        analyticsView.invalidate();
+        analyticsView.getSummary();
+        commit.countDown();
+        long slowId = slowWriter.join();
+
+        assertThat(slowId).isLessThan(fastId);
+        assertThat(analyticsView.verifyAgainstDatabase()).isEmpty();
+    }
+}
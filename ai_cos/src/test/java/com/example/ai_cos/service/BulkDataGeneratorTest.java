@@ -0,0 +1,71 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.dto.GenerationStatus;
+import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-generate",
+        "app.generate.chunk-size=700"
+})
+class BulkDataGeneratorTest {
+
+    @Autowired
+    private BulkDataGenerator bulkDataGenerator;
+
+    @Autowired
+    private AnalyticsView analyticsView;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void generatesRequestedRowsAndRefreshesAnalytics() throws InterruptedException {
+        long clientsBefore = clientRepository.count();
+        long ordersBefore = orderRepository.count();
+        analyticsView.getSummary();
+
+        GenerationStatus status = awaitFinished(bulkDataGenerator.start(2_000, 10_000).id());
+
+        assertThat(status.state()).isEqualTo(GenerationStatus.State.COMPLETED);
+        assertThat(status.clientsInserted()).isEqualTo(2_000);
+        assertThat(status.ordersInserted()).isEqualTo(10_000);
+        assertThat(clientRepository.count()).isEqualTo(clientsBefore + 2_000);
+        assertThat(orderRepository.count()).isEqualTo(ordersBefore + 10_000);
+        assertThat(analyticsView.getSummary().orderCount()).isEqualTo(ordersBefore + 10_000);
+        assertThat(analyticsView.verifyAgainstDatabase()).isEmpty();
+    }
+
+    @Test
+    void rejectsASecondJobWhileOneIsRunning() throws InterruptedException {
+        GenerationStatus first = bulkDataGenerator.start(20_000, 0);
+
+        assertThatThrownBy(() -> bulkDataGenerator.start(10, 0))
+                .isInstanceOf(GenerationInProgressException.class)
+                .hasMessageContaining(first.id());
+
+        assertThat(awaitFinished(first.id()).state()).isEqualTo(GenerationStatus.State.COMPLETED);
+        assertThat(awaitFinished(bulkDataGenerator.start(10, 0).id()).state()).isEqualTo(GenerationStatus.State.COMPLETED);
+    }
+
+    private GenerationStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        GenerationStatus status = bulkDataGenerator.status(jobId).orElseThrow();
+        while (status.state() == GenerationStatus.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            status = bulkDataGenerator.status(jobId).orElseThrow();
+        }
+        return status;
+    }
+}
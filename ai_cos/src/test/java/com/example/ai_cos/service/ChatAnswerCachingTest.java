@@ -0,0 +1,68 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.support.GeminiStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ChatAnswerCachingTest {
+
+    private static final GeminiStubServer STUB = GeminiStubServer.start();
+
+    @DynamicPropertySource
+    static void geminiProperties(DynamicPropertyRegistry registry) {
+        registry.add("gemini.base-url", STUB::baseUrl);
+        registry.add("gemini.api.key", () -> "test-key");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:chat-answer-caching");
+        registry.add("chat.cache.enabled", () -> "true");
+        registry.add("gemini.max-tool-steps", () -> "1");
+    }
+
+    @Autowired
+    private ChatService chatService;
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @BeforeEach
+    void resetStub() {
+        STUB.reset();
+    }
+
+    @Test
+    void textAnswerIsCached() {
+        STUB.enqueueText("Mamy 5 klientów.");
+
+        assertThat(chatService.chat("Ilu mamy klientów?")).isEqualTo("Mamy 5 klientów.");
+        assertThat(chatService.chat("ilu mamy klientów")).isEqualTo("Mamy 5 klientów.");
+        assertThat(STUB.requests()).hasSize(1);
+    }
+
+    @Test
+    void replyWithoutTextIsNotCached() {
+        STUB.enqueueText().enqueueText("Mamy 3 zamówienia.");
+
+        assertThat(chatService.chat("Ile mamy zamówień?")).isEqualTo("Nie udało się uzyskać odpowiedzi.");
+        assertThat(chatService.chat("Ile mamy zamówień?")).isEqualTo("Mamy 3 zamówienia.");
+        assertThat(STUB.requests()).hasSize(2);
+    }
+
+    @Test
+    void answerForcedAfterTheLastToolStepIsNotCached() {
+        STUB.enqueueFunctionCalls("getClientCount").enqueueText("Wymuszona odpowiedź.")
+                .enqueueText("Pełna odpowiedź.");
+
+        assertThat(chatService.chat("Jaki jest stan bazy?")).isEqualTo("Wymuszona odpowiedź.");
+        assertThat(chatService.chat("Jaki jest stan bazy?")).isEqualTo("Pełna odpowiedź.");
+        assertThat(STUB.requests()).hasSize(3);
+    }
+}
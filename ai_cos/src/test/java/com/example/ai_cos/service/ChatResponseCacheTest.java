@@ -0,0 +1,39 @@
+package com.example.ai_cos.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatResponseCacheTest {
+
+    private final DataVersion dataVersion = new DataVersion();
+    private final ChatResponseCache cache = new ChatResponseCache(dataVersion, true, 100, Duration.ofMinutes(10));
+
+    @Test
+    void returnsAnswerForNormalizedQuestion() {
+        cache.put("Kto jest głównym klientem?", dataVersion.current(), "Jan Kowalski");
+
+        assertThat(cache.get("  kto jest   GŁÓWNYM klientem ")).isEqualTo("Jan Kowalski");
+        assertThat(cache.stats()).containsEntry("hits", 1L);
+    }
+
+    @Test
+    void dataWriteInvalidatesEntries() {
+        cache.put("Ile mamy zamówień?", dataVersion.current(), "10");
+        dataVersion.increment();
+
+        assertThat(cache.get("Ile mamy zamówień?")).isNull();
+        assertThat(cache.stats()).containsEntry("misses", 1L).containsEntry("invalidations", 1L);
+    }
+
+    @Test
+    void answerComputedBeforeWriteIsNotStored() {
+        long version = dataVersion.current();
+        dataVersion.increment();
+        cache.put("Ile mamy klientów?", version, "5");
+
+        assertThat(cache.get("Ile mamy klientów?")).isNull();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.ai_cos.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChatSessionStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ChatSessionStore store = new ChatSessionStore(true, 100, Duration.ofMinutes(5), 600, 1, 100, 8);
+
+    @Test
+    void sessionsAreOnlyOpenedForAnId() {
+        assertThat(store.open(null)).isNull();
+        assertThat(store.open(" ")).isNull();
+        assertThat(store.open("abc")).isSameAs(store.open("abc"));
+        assertThatThrownBy(() -> store.open("x".repeat(129))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void historyWithinBudgetIsKeptAsIs() {
+        ChatSession session = store.open("short");
+        store.append(session, toolTurn("Ilu mamy klientów?", "Liczba klientów: 20"), "Mamy 20 klientów.");
+
+        List<JsonNode> history = session.history();
+
+        assertThat(history).hasSize(4);
+        assertThat(resultOf(history.get(2))).isEqualTo("Liczba klientów: 20");
+        assertThat(history.get(3).path("parts").path(0).path("text").asText()).isEqualTo("Mamy 20 klientów.");
+    }
+
+    @Test
+    void oldToolResultsAreShortenedFirst() {
+        ChatSession session = store.open("long-result");
+        String longResult = "Lista klientów:\n" + "  ID: 1, Imię: Jan, Nazwisko: Nowak\n".repeat(80);
+        store.append(session, toolTurn("Pokaż klientów", longResult), "Oto klienci.");
+        assertThat(resultOf(session.history().get(2))).isEqualTo(longResult);
+
+        store.append(session, List.of(userText("A ilu ich jest?")), "Dwudziestu.");
+
+        List<JsonNode> history = session.history();
+        assertThat(history).hasSize(6);
+        assertThat(resultOf(history.get(2)))
+                .startsWith("Lista klientów:\n  ID: 1")
+                .contains("Wynik skrócony w historii rozmowy (" + longResult.length() + " znaków)")
+                .hasSizeLessThan(300);
+        assertThat(history.get(3).path("parts").path(0).path("text").asText()).isEqualTo("Oto klienci.");
+    }
+
+    @Test
+    void toolCallsAndThenOldestTurnsAreDroppedWhenStillOverBudget() {
+        ChatSession session = store.open("many-turns");
+        for (int turn = 1; turn <= 6; turn++) {
+            store.append(session, toolTurn("Pytanie " + turn, "wynik " + turn), "Odpowiedź " + turn + " " + "x".repeat(800));
+        }
+
+        List<JsonNode> history = session.history();
+
+        assertThat(ChatSessionStore.estimateTokens(history)).isLessThanOrEqualTo(600);
+        assertThat(history.getFirst().path("parts").path(0).path("text").asText()).isNotEqualTo("Pytanie 1");
+        assertThat(history.getLast().path("parts").path(0).path("text").asText()).startsWith("Odpowiedź 6");
+        assertThat(history.subList(0, history.size() - 4))
+                .noneMatch(content -> content.path("parts").path(0).has("functionCall"));
+        assertThat(store.stats()).containsEntry("compactions", 4L);
+    }
+
+    @Test
+    void rememberedToolResultsExpireWithTheDataVersion() {
+        ChatSession session = store.open("memo");
+        session.remember("getClientCount", "{}", 3, "Liczba klientów: 20");
+
+        assertThat(session.recall("getClientCount", "{}", 3)).isEqualTo("Liczba klientów: 20");
+        assertThat(session.recall("getClientCount", "{\"x\":1}", 3)).isNull();
+        assertThat(session.recall("getClientCount", "{}", 4)).isNull();
+    }
+
+    private List<JsonNode> toolTurn(String question, String result) {
+        ObjectNode call = objectMapper.createObjectNode();
+        call.put("role", "model");
+        call.putArray("parts").addObject().putObject("functionCall").put("name", "tool").putObject("args");
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("role", "user");
+        ObjectNode functionResponse = response.putArray("parts").addObject().putObject("functionResponse");
+        functionResponse.put("name", "tool");
+        functionResponse.putObject("response").put("result", result);
+        return List.of(userText(question), call, response);
+    }
+
+    private ObjectNode userText(String text) {
+        ObjectNode content = objectMapper.createObjectNode();
+        content.put("role", "user");
+        content.putArray("parts").addObject().put("text", text);
+        return content;
+    }
+
+    private static String resultOf(JsonNode content) {
+        return content.path("parts").path(0).path("functionResponse").path("response").path("result").asText();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tools-paging",
+        "tools.output.default-limit=5",
+        "tools.output.max-chars=800"
+})
+class DatabaseToolsPagingTest {
+
+    @Autowired
+    private DatabaseTools databaseTools;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @BeforeEach
+    void seed() {
+        if (clientRepository.count() > 0) {
+            return;
+        }
+        for (int i = 0; i < 20; i++) {
+            Client client = clientRepository.save(new Client("Jan" + i, i % 2 == 0 ? "Nowak" : "Kowalski", "jan" + i + "@test.pl", null));
+            orderRepository.save(new Order(i % 3 == 0 ? "Laptop" : "Mysz", 1 + i % 4, BigDecimal.valueOf(10 + i), client));
+        }
+    }
+
+    @Test
+    void firstPageComesWithSummaryOfAllRowsAndPagingHint() {
+        String result = databaseTools.listAllClients(null, null, null);
+
+        assertThat(result).startsWith("Podsumowanie klientów: 20,")
+                .contains("Nowak (10)", "Kowalski (10)", "Imię: Jan0,", "Imię: Jan4,")
+                .doesNotContain("Imię: Jan5,")
+                .endsWith("Pokazano wiersze 1-5 z 20. Kolejne wiersze: offset=5.");
+    }
+
+    @Test
+    void sortsAndPagesFromAnyOffset() {
+        String result = databaseTools.getOrdersByStatus("new", 3, 0, "price desc");
+
+        assertThat(result).contains("Podsumowanie zamówień ze statusem NEW: 20 zamówień", "Laptop (7)");
+        assertThat(result.indexOf("Mysz, Klient")).isLessThan(result.indexOf("Laptop, Klient"));
+
+        String lastPage = databaseTools.listAllClients(10, 18, "-id");
+        assertThat(lastPage).contains("Imię: Jan1,", "Imię: Jan0,").endsWith("Pokazano wiersze 19-20 z 20.");
+    }
+
+    @Test
+    void outputIsCutAtMaxCharsAndSummarized() {
+        String result = databaseTools.listAllOrders(500, null, "orderDate");
+
+        assertThat(result).contains("Podsumowanie zamówień: 20 zamówień", "- Statusy: NEW 20", "Wynik skrócony do 800 znaków.");
+        assertThat(result.length()).isLessThanOrEqualTo(800);
+    }
+
+    @Test
+    void everyListingToolStaysWithinMaxChars() {
+        List<String> results = List.of(
+                databaseTools.listAllClients(500, null, null),
+                databaseTools.listAllOrders(500, 3, null),
+                databaseTools.getOrdersByStatus("NEW", 500, null, null),
+                databaseTools.searchOrdersByProduct("mysz", 500, null),
+                databaseTools.getClientsRankedByOrderCount(500, null),
+                databaseTools.getClientsRankedBySpending(500, 1));
+
+        assertThat(results).allSatisfy(result -> assertThat(result).hasSizeLessThanOrEqualTo(800).contains("Pokazano wiersze"));
+    }
+
+    @Test
+    void productSearchPagesMatchingOrdersWithSummary() {
+        String result = databaseTools.searchOrdersByProduct("mysz", 5, null);
+
+        assertThat(result).startsWith("Podsumowanie: 13 zamówień,")
+                .contains("- Produkty: Mysz (13)", "Zamówienia dla produktu 'mysz':")
+                .doesNotContain("Laptop")
+                .endsWith("Pokazano wiersze 1-5 z 13. Kolejne wiersze: offset=5.");
+    }
+
+    @Test
+    void rankingsArePagedAndNumberedFromTheOffset() {
+        String result = databaseTools.getClientsRankedBySpending(3, 2);
+
+        assertThat(result).startsWith("Podsumowanie: 20 klientów, 20 zamówień,")
+                .contains("\n3. Jan", "\n5. Jan")
+                .doesNotContain("\n2. ", "\n6. ")
+                .endsWith("Pokazano wiersze 3-5 z 20. Kolejne wiersze: offset=5.");
+    }
+
+    @Test
+    void rejectsUnknownSortField() {
+        assertThat(databaseTools.listAllOrders(null, null, "client"))
+                .isEqualTo("Nieprawidłowe sortowanie: client. Dostępne pola: id, productName, quantity, price, orderDate, status");
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.model.Client;
+import com.example.ai_cos.model.Order;
+import com.example.ai_cos.repository.ClientRepository;
+import com.example.ai_cos.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-count",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class DatabaseToolsQueryCountTest {
+
+    @Autowired
+    private DatabaseTools databaseTools;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (clientRepository.count() > 0) {
+            return;
+        }
+        for (int i = 0; i < 20; i++) {
+            Client client = clientRepository.save(new Client("Jan" + i, "Kowalski" + i, "jan" + i + "@test.pl", null));
+            for (int j = 0; j <= i % 5; j++) {
+                orderRepository.save(new Order("Laptop", 1 + j, BigDecimal.valueOf(100 + i), client));
+            }
+        }
+        clientRepository.save(new Client("Bez", "Zamowien", "bez@test.pl", null));
+    }
+
+    @Test
+    void rankingByOrderCountUsesSingleStatement() {
+        assertStatements(() -> databaseTools.getClientsRankedByOrderCount(null, null), 1);
+    }
+
+    @Test
+    void rankingBySpendingUsesSingleStatement() {
+        assertStatements(() -> databaseTools.getClientsRankedBySpending(null, null), 1);
+    }
+
+    @Test
+    void topClientByOrderCountOnlyLoadsTheClient() {
+        assertStatements(databaseTools::getTopClientByOrderCount, 1);
+    }
+
+    @Test
+    void topClientBySpendingOnlyLoadsTheClient() {
+        assertStatements(databaseTools::getTopClientBySpending, 1);
+    }
+
+    @Test
+    void totalSpentByClientOnlyLoadsTheClient() {
+        assertStatements(() -> databaseTools.getTotalSpentByClient(1L), 1);
+    }
+
+    @Test
+    void databaseSummaryIsServedFromTheView() {
+        assertStatements(databaseTools::getDatabaseSummary, 0);
+    }
+
+    @Test
+    void countsAreServedFromTheView() {
+        assertStatements(databaseTools::getClientCount, 0);
+        assertStatements(databaseTools::getOrderCount, 0);
+    }
+
+    @Test
+    void mostPopularProductsAreServedFromTheView() {
+        assertStatements(databaseTools::getMostPopularProducts, 0);
+    }
+
+    @Test
+    void rankingIncludesClientsWithoutOrders() {
+        assertThat(databaseTools.getClientsRankedByOrderCount(null, null))
+                .contains("Bez Zamowien - 0 zamówień, wydał łącznie: 0.00 PLN");
+    }
+
+    /** Runs {@code tool} once to warm the analytics view, then counts the statements of a second call. */
+    private void assertStatements(Supplier<String> tool, long expected) {
+        tool.get();
+        statistics.clear();
+        String result = tool.get();
+        assertThat(result).isNotBlank();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.ai_cos.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final AtomicInteger coalesced = new AtomicInteger();
+    private final SingleFlight<String, String> flights = new SingleFlight<>(coalesced::incrementAndGet);
+
+    @Test
+    void concurrentCallersShareOneComputation() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flights.run("key", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "wynik";
+            }));
+            started.await();
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                followers.add(executor.submit(() -> flights.run("key", () -> {
+                    computations.incrementAndGet();
+                    return "inny";
+                })));
+            }
+            while (coalesced.get() < 8) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(leader.get()).isEqualTo("wynik");
+            for (Future<String> follower : followers) {
+                assertThat(follower.get()).isEqualTo("wynik");
+            }
+        }
+        assertThat(computations).hasValue(1);
+        assertThat(flights.inFlight()).isZero();
+    }
+
+    @Test
+    void keyIsFreedOnceTheFlightLands() {
+        assertThat(flights.run("key", () -> "pierwszy")).isEqualTo("pierwszy");
+        assertThat(flights.run("key", () -> "drugi")).isEqualTo("drugi");
+        assertThat(coalesced).hasValue(0);
+    }
+
+    @Test
+    void failuresReachEveryCallerAndReleaseTheKey() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> leader = flights.runAsync("key", () -> upstream);
+        CompletableFuture<String> follower = flights.runAsync("key", () -> CompletableFuture.completedFuture("inny"));
+
+        upstream.completeExceptionally(new IllegalStateException("429"));
+
+        assertThat(leader).isCompletedExceptionally();
+        assertThat(follower).isCompletedExceptionally();
+        assertThatThrownBy(() -> flights.run("key", () -> {
+            throw new IllegalArgumentException("zły argument");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(flights.inFlight()).isZero();
+    }
+
+    @Test
+    void timingOutOneCallerLeavesTheOthersWaiting() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> impatient = flights.runAsync("key", () -> upstream)
+                .orTimeout(10, TimeUnit.MILLISECONDS);
+        CompletableFuture<String> patient = flights.runAsync("key", () -> upstream);
+
+        assertThatThrownBy(impatient::join).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(patient).isNotDone();
+
+        upstream.complete("wynik");
+        assertThat(patient.get(1, TimeUnit.SECONDS)).isEqualTo("wynik");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ai_cos.service;
+
+import com.example.ai_cos.event.DataDomain;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolResultCacheTest {
+
+    private final ToolResultCache cache = new ToolResultCache(true, 1024 * 1024);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void argumentsAreCanonicalized() {
+        cache.get(cache.key("getOrdersForClient", "{\"clientId\": 5, \"limit\": 10}", Set.of(DataDomain.ORDERS)), this::load);
+        cache.get(cache.key("getOrdersForClient", "{\"limit\":10,\"clientId\":5}", Set.of(DataDomain.ORDERS)), this::load);
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void writesEvictOnlyToolsReadingThatTable() {
+        ToolResultCache.Key clientTool = cache.key("getClientById", "{\"id\":1}", Set.of(DataDomain.CLIENTS));
+        ToolResultCache.Key orderTool = cache.key("getOrderCount", "{}", Set.of(DataDomain.ORDERS));
+        cache.get(clientTool, this::load);
+        cache.get(orderTool, this::load);
+
+        cache.invalidate(DataDomain.ORDERS);
+        cache.get(clientTool, this::load);
+        cache.get(orderTool, this::load);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void resultLoadedAcrossAnInvalidationIsNotStored() {
+        ToolResultCache.Key orderTool = cache.key("getOrderCount", "{}", Set.of(DataDomain.ORDERS));
+        cache.get(orderTool, () -> {
+            cache.invalidate(DataDomain.ORDERS);
+            return load();
+        });
+        cache.get(orderTool, this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private String load() {
+        return "wynik " + loads.incrementAndGet();
+    }
+}
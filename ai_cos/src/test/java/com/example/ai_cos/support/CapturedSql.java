@@ -0,0 +1,40 @@
+package com.example.ai_cos.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL Hibernate prepares on each thread, so a test can inspect the statements a
+ * repository method really runs without picking up background work. Enabled with
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.ai_cos.support.CapturedSql}.
+ */
+public class CapturedSql implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.get().clear();
+    }
+
+    /** Statements prepared on this thread since {@link #clear()}. */
+    public static List<String> all() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+    /** The first statement prepared on this thread since {@link #clear()}. */
+    public static String first() {
+        List<String> statements = STATEMENTS.get();
+        if (statements.isEmpty()) {
+            throw new IllegalStateException("No SQL was captured");
+        }
+        return statements.getFirst();
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.ai_cos.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local HTTP server speaking the Gemini generateContent / streamGenerateContent wire format.
+ * Responses are scripted in order; each scripted response is a list of parts, and the
+ * streaming endpoint sends one SSE event per part. A scripted error answers with its status
+ * and a Gemini-style error body instead.
+ * <p>
+ * Once the script runs out the stub keeps answering on its own, which is what load tests use:
+ * optionally with a call to a default function first (answering with text once the request
+ * carries its result), failing a share of the requests with an injected error, and waiting a
+ * delay drawn from a {@link Latency} before every reply.
+ */
+public class GeminiStubServer implements AutoCloseable {
+
+    /** Standard normal quantile of the 99th percentile. */
+    private static final double Z_99 = 2.326;
+
+    private record Reply(int status, String retryAfter, List<JsonNode> parts) {
+    }
+
+    /** How long the stub waits before answering a request. */
+    @FunctionalInterface
+    public interface Latency {
+
+        Duration next();
+
+        static Latency fixed(Duration delay) {
+            return () -> delay;
+        }
+
+        static Latency uniform(Duration min, Duration max) {
+            return () -> Duration.ofNanos(ThreadLocalRandom.current().nextLong(min.toNanos(), max.toNanos() + 1));
+        }
+
+        /** Log-normal delays with the given median and 99th percentile, the long-tailed shape of real LLM latency. */
+        static Latency logNormal(Duration median, Duration p99) {
+            double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / Z_99;
+            return () -> Duration.ofNanos((long) (median.toNanos() * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final Queue<Reply> script = new ConcurrentLinkedQueue<>();
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    private volatile Latency latency = Latency.fixed(Duration.ZERO);
+    private volatile String defaultFunction;
+    private volatile double errorRate;
+    private volatile int injectedStatus = 503;
+
+    private GeminiStubServer(HttpServer server) {
+        this.server = server;
+    }
+
+    public static GeminiStubServer start() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            GeminiStubServer stub = new GeminiStubServer(server);
+            server.createContext("/", stub::handle);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start Gemini stub server", e);
+        }
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public GeminiStubServer withLatency(Duration latency) {
+        return withLatency(Latency.fixed(latency));
+    }
+
+    public GeminiStubServer withLatency(Latency latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Unscripted requests call {@code functionName} (without arguments) before answering, so
+     * every chat makes one tool round trip; {@code null} answers with text right away.
+     */
+    public GeminiStubServer withDefaultFunctionCall(String functionName) {
+        this.defaultFunction = functionName;
+        return this;
+    }
+
+    /** Answers this share of unscripted requests with {@code status} instead. */
+    public GeminiStubServer withErrorRate(double errorRate, int status) {
+        this.errorRate = errorRate;
+        this.injectedStatus = status;
+        return this;
+    }
+
+    public GeminiStubServer enqueueText(String... chunks) {
+        List<JsonNode> parts = new ArrayList<>();
+        for (String chunk : chunks) {
+            parts.add(objectMapper.createObjectNode().put("text", chunk));
+        }
+        script.add(new Reply(200, null, parts));
+        return this;
+    }
+
+    /** Scripts one step with these calls, made in parallel; a {@code null} name leaves the call without one. */
+    public GeminiStubServer enqueueFunctionCalls(String... functionNames) {
+        List<JsonNode> parts = new ArrayList<>();
+        for (String name : functionNames) {
+            parts.add(functionCall(name, Map.of()));
+        }
+        script.add(new Reply(200, null, parts));
+        return this;
+    }
+
+    /** Scripts a call to {@code functionName} with the given arguments. */
+    public GeminiStubServer enqueueFunctionCall(String functionName, Map<String, ?> args) {
+        script.add(new Reply(200, null, List.of(functionCall(functionName, args))));
+        return this;
+    }
+
+    /** Answers the next request with {@code status}; {@code retryAfter} becomes the Retry-After header when not null. */
+    public GeminiStubServer enqueueError(int status, String retryAfter) {
+        script.add(new Reply(status, retryAfter, List.of()));
+        return this;
+    }
+
+    public List<JsonNode> requests() {
+        return requests;
+    }
+
+    public void reset() {
+        script.clear();
+        requests.clear();
+        latency = Latency.fixed(Duration.ZERO);
+        defaultFunction = null;
+        errorRate = 0;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        requests.add(request);
+        Reply reply = script.poll();
+        if (reply == null) {
+            reply = unscripted(request);
+        }
+        List<JsonNode> parts = reply.parts();
+        try {
+            Thread.sleep(latency.next());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try (OutputStream body = exchange.getResponseBody()) {
+            if (reply.status() >= 400) {
+                ObjectNode error = objectMapper.createObjectNode();
+                error.putObject("error").put("code", reply.status()).put("message", "Scripted error");
+                byte[] json = objectMapper.writeValueAsBytes(error);
+                if (reply.retryAfter() != null) {
+                    exchange.getResponseHeaders().set("Retry-After", reply.retryAfter());
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(reply.status(), json.length);
+                body.write(json);
+            } else if (exchange.getRequestURI().getPath().endsWith(":streamGenerateContent")) {
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0);
+                for (JsonNode part : parts) {
+                    body.write(("data: " + objectMapper.writeValueAsString(response(List.of(part))) + "\r\n\r\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                }
+            } else {
+                byte[] json = objectMapper.writeValueAsBytes(response(parts));
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, json.length);
+                body.write(json);
+            }
+        }
+    }
+
+    private Reply unscripted(JsonNode request) {
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return new Reply(injectedStatus, null, List.of());
+        }
+        String function = defaultFunction;
+        if (function != null && !request.path("contents").path(request.path("contents").size() - 1)
+                .path("parts").path(0).has("functionResponse")) {
+            return new Reply(200, null, List.of(functionCall(function, Map.of())));
+        }
+        return new Reply(200, null, List.of(objectMapper.createObjectNode().put("text", "OK")));
+    }
+
+    private JsonNode functionCall(String name, Map<String, ?> args) {
+        ObjectNode part = objectMapper.createObjectNode();
+        ObjectNode functionCall = part.putObject("functionCall");
+        if (name != null) {
+            functionCall.put("name", name);
+        }
+        functionCall.set("args", objectMapper.valueToTree(args));
+        return part;
+    }
+
+    private ObjectNode response(List<JsonNode> parts) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode content = response.putArray("candidates").addObject().putObject("content");
+        content.put("role", "model");
+        ArrayNode contentParts = content.putArray("parts");
+        parts.forEach(contentParts::add);
+        return response;
+    }
+}